@@ -0,0 +1,269 @@
+package com.portaria.carga;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Reproduz a troca de turno: retiradas, devoluções FIFO e leituras do dashboard chegando
+// a uma taxa fixa (modelo aberto), independente de quanto a aplicação demora para responder.
+public class CargaPortaria {
+
+    private static final Pattern ID_JSON = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final ConfiguracaoCarga config;
+    private final HttpClient http;
+    private final Duration tempoLimite;
+    private final Estatisticas estatisticas = new Estatisticas();
+    private final Map<Operacao, Integer> mix;
+    private final int somaPesos;
+
+    private final List<Long> itens = new ArrayList<>();
+    // Unidades retiradas pela própria carga e ainda não devolvidas, por item.
+    private final Map<Long, AtomicInteger> unidadesFora = new ConcurrentHashMap<>();
+    private final AtomicInteger sequenciaFuncionario = new AtomicInteger();
+
+    // A verificação de atrasos da aplicação roda por cron a cada "periodo" segundos de relógio
+    // (:00, :10, ...). Cada amostra é marcada como "com alarme" se a requisição esteve no ar durante
+    // os primeiros "janela" ms de algum ciclo, para o relatório comparar a portaria com e sem a varredura.
+    private final long periodoAlarmeMs;
+    private final long janelaAlarmeMs;
+    private final long defasagemAlarmeMs;
+    private final long origemEpochMs = System.currentTimeMillis();
+    private final long origemNanos = System.nanoTime();
+
+    public CargaPortaria(ConfiguracaoCarga config) {
+        this.config = config;
+        this.tempoLimite = Duration.ofMillis(config.getInt("tempo-limite-ms", 10000));
+        this.http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(tempoLimite)
+            .build();
+        this.mix = config.getMix();
+        this.somaPesos = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.periodoAlarmeMs = config.getInt("alarme.periodo-ms", 10000);
+        this.janelaAlarmeMs = config.getInt("alarme.janela-ms", 2000);
+        this.defasagemAlarmeMs = config.getInt("alarme.defasagem-ms", 0);
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfiguracaoCarga config = ConfiguracaoCarga.carregar(args.length > 0 ? args[0] : null);
+        CargaPortaria carga = new CargaPortaria(config);
+
+        carga.prepararItens();
+        double duracao = carga.executar();
+        List<String> violacoes = carga.estatisticas.relatorio(duracao, config);
+        carga.estatisticas.relatorioAlarme(carga.periodoAlarmeMs, carga.janelaAlarmeMs);
+
+        System.exit(violacoes.isEmpty() ? 0 : 1);
+    }
+
+    private void prepararItens() throws Exception {
+        int quantidade = config.getInt("preparacao.itens", 50);
+        int estoqueInicial = config.getInt("preparacao.estoque-inicial", 500);
+        long marca = System.currentTimeMillis();
+
+        for (int i = 0; i < quantidade; i++) {
+            String corpo = String.format("{\"nome\":\"Carga %d-%d\",\"quantidadeTotal\":%d}", marca, i, estoqueInicial);
+            HttpResponse<String> resposta = http.send(post("/api/itens", corpo), HttpResponse.BodyHandlers.ofString());
+            Matcher id = ID_JSON.matcher(resposta.body());
+            if (resposta.statusCode() != 201 || !id.find()) {
+                throw new IllegalStateException("Falha ao criar item de carga: HTTP " + resposta.statusCode() + " " + resposta.body());
+            }
+            long itemId = Long.parseLong(id.group(1));
+            itens.add(itemId);
+            unidadesFora.put(itemId, new AtomicInteger());
+        }
+        System.out.println("Preparação concluída: " + itens.size() + " itens com " + estoqueInicial + " unidades em " + config.getUrlAlvo());
+    }
+
+    private double executar() {
+        long inicio = System.nanoTime();
+        long proximaChegada = inicio;
+        long fimFase = inicio;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (ConfiguracaoCarga.Fase fase : config.getFases()) {
+                fimFase += fase.duracaoSegundos() * 1_000_000_000L;
+                System.out.printf("Fase: %d s a %.1f chegadas/s%n", fase.duracaoSegundos(), fase.chegadasPorSegundo());
+
+                if (fase.chegadasPorSegundo() <= 0) {
+                    proximaChegada = fimFase;
+                    esperarAte(fimFase);
+                    continue;
+                }
+
+                while (true) {
+                    // Intervalos exponenciais: chegadas de Poisson com a taxa da fase.
+                    double intervaloSegundos = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) / fase.chegadasPorSegundo();
+                    proximaChegada += (long) (intervaloSegundos * 1_000_000_000L);
+                    if (proximaChegada >= fimFase) {
+                        proximaChegada = fimFase;
+                        break;
+                    }
+                    esperarAte(proximaChegada);
+
+                    long agendadaPara = proximaChegada;
+                    Operacao operacao = sortearOperacao();
+                    executor.submit(() -> executarOperacao(operacao, agendadaPara));
+                }
+            }
+        }
+
+        return (System.nanoTime() - inicio) / 1_000_000_000.0;
+    }
+
+    private Operacao sortearOperacao() {
+        int sorteio = ThreadLocalRandom.current().nextInt(somaPesos);
+        for (Map.Entry<Operacao, Integer> entrada : mix.entrySet()) {
+            sorteio -= entrada.getValue();
+            if (sorteio < 0) {
+                return entrada.getKey();
+            }
+        }
+        return Operacao.RETIRADA;
+    }
+
+    private void executarOperacao(Operacao operacao, long agendadaPara) {
+        switch (operacao) {
+            case RETIRADA -> retirar(agendadaPara);
+            case DEVOLUCAO -> devolver(agendadaPara);
+            case DASHBOARD -> consultarDashboard(agendadaPara);
+            case HISTORICO -> medir("movimentacoes", get("/api/movimentacao/movimentacoes"), agendadaPara);
+            case ATIVAS -> medir("ativas", get("/api/movimentacao/ativas"), agendadaPara);
+        }
+    }
+
+    private void retirar(long agendadaPara) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        long itemId = itens.get(aleatorio.nextInt(itens.size()));
+        int quantidade = 1 + aleatorio.nextInt(config.getInt("retirada.quantidade-maxima", 3));
+
+        // Parte das retiradas já nasce vencida, para a verificação de atrasos ter o que marcar.
+        boolean atrasada = aleatorio.nextDouble() < config.getDouble("retirada.fracao-atrasada", 0.1);
+        LocalDate prazo = atrasada ? LocalDate.now().minusDays(1) : LocalDate.now().plusDays(1 + aleatorio.nextInt(7));
+
+        String corpo = String.format(
+            "{\"quantidade\":%d,\"funcionarioSolicitante\":\"Funcionario %d\",\"tipo\":\"RETIRADA\",\"dataPrevistaDevolucao\":\"%s\"}",
+            quantidade, sequenciaFuncionario.incrementAndGet() % 500, prazo);
+
+        if (medir("retirar", post("/api/movimentacao/retirar/" + itemId, corpo), agendadaPara)) {
+            unidadesFora.get(itemId).addAndGet(quantidade);
+        }
+    }
+
+    private void devolver(long agendadaPara) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        int inicio = aleatorio.nextInt(itens.size());
+
+        for (int i = 0; i < itens.size(); i++) {
+            long itemId = itens.get((inicio + i) % itens.size());
+            AtomicInteger fora = unidadesFora.get(itemId);
+            int atual = fora.get();
+            if (atual <= 0) {
+                continue;
+            }
+            int quantidade = 1 + aleatorio.nextInt(atual);
+            if (!fora.compareAndSet(atual, atual - quantidade)) {
+                continue;
+            }
+
+            String corpo = String.format("{\"quantidadeDevolvida\":%d}", quantidade);
+            if (!medir("devolver", post("/api/movimentacao/devolver/" + itemId, corpo), agendadaPara)) {
+                fora.addAndGet(quantidade);
+            }
+            return;
+        }
+
+        // Nada fora do estoque ainda: no início do turno a chegada vira uma retirada.
+        retirar(agendadaPara);
+    }
+
+    // Todas as consultas contam do instante agendado do cenário: cada "estoque" é o tempo até aquela
+    // linha aparecer para quem abriu o dashboard, e "dashboard" é o tempo até a última.
+    private void consultarDashboard(long agendadaPara) {
+        boolean completo = medir("itens", get("/api/itens"), agendadaPara);
+        if (completo) {
+            // Como o front-end, consulta o estoque item a item em seguida.
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            int consultas = Math.min(config.getInt("dashboard.itens", 10), itens.size());
+            for (int i = 0; i < consultas; i++) {
+                long itemId = itens.get(aleatorio.nextInt(itens.size()));
+                completo &= medir("estoque", get("/api/movimentacao/estoque/" + itemId), agendadaPara);
+            }
+        }
+        long fim = System.nanoTime();
+        estatisticas.registrar("dashboard", fim - agendadaPara,
+            completo ? Estatisticas.Resultado.SUCESSO : Estatisticas.Resultado.ERRO, comAlarme(agendadaPara, fim));
+    }
+
+    // A latência conta a partir do instante agendado, e não do envio, para que atrasos
+    // do próprio gerador não escondam a fila que se forma na aplicação.
+    private boolean medir(String endpoint, HttpRequest requisicao, long agendadaPara) {
+        try {
+            HttpResponse<String> resposta = http.send(requisicao, HttpResponse.BodyHandlers.ofString());
+            long fim = System.nanoTime();
+            int status = resposta.statusCode();
+            Estatisticas.Resultado resultado = status < 400 ? Estatisticas.Resultado.SUCESSO
+                : status < 500 ? Estatisticas.Resultado.REJEITADO
+                : Estatisticas.Resultado.ERRO;
+            estatisticas.registrar(endpoint, fim - agendadaPara, resultado, comAlarme(agendadaPara, fim));
+            return resultado == Estatisticas.Resultado.SUCESSO;
+        } catch (Exception e) {
+            long fim = System.nanoTime();
+            estatisticas.registrar(endpoint, fim - agendadaPara, Estatisticas.Resultado.ERRO, comAlarme(agendadaPara, fim));
+            return false;
+        }
+    }
+
+    // Se [inicio, fim] cruza a janela inicial de algum ciclo da verificação. Basta olhar o último ciclo
+    // que começou até "fim": os anteriores terminam antes dele.
+    private boolean comAlarme(long inicioNanos, long fimNanos) {
+        if (periodoAlarmeMs <= 0) {
+            return false;
+        }
+        long inicioMs = paraRelogioServidor(inicioNanos);
+        long fimMs = paraRelogioServidor(fimNanos);
+        long ultimoCiclo = Math.floorDiv(fimMs, periodoAlarmeMs) * periodoAlarmeMs;
+        return ultimoCiclo + janelaAlarmeMs > inicioMs;
+    }
+
+    private long paraRelogioServidor(long nanos) {
+        return origemEpochMs + (nanos - origemNanos) / 1_000_000L + defasagemAlarmeMs;
+    }
+
+    private HttpRequest get(String caminho) {
+        return HttpRequest.newBuilder(URI.create(config.getUrlAlvo() + caminho))
+            .timeout(tempoLimite)
+            .GET()
+            .build();
+    }
+
+    private HttpRequest post(String caminho, String corpoJson) {
+        return HttpRequest.newBuilder(URI.create(config.getUrlAlvo() + caminho))
+            .timeout(tempoLimite)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(corpoJson))
+            .build();
+    }
+
+    private static void esperarAte(long instanteNanos) {
+        long restante;
+        while ((restante = instanteNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(restante);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.portaria.carga;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Properties;
+
+public class ConfiguracaoCarga {
+
+    public record Fase(int duracaoSegundos, double chegadasPorSegundo) {}
+
+    private final Properties propriedades;
+
+    private ConfiguracaoCarga(Properties propriedades) {
+        this.propriedades = propriedades;
+    }
+
+    // Lê o carga.properties do classpath e, se informado, sobrescreve com um arquivo externo.
+    public static ConfiguracaoCarga carregar(String arquivo) throws IOException {
+        Properties propriedades = new Properties();
+        try (InputStream padrao = ConfiguracaoCarga.class.getResourceAsStream("/carga.properties")) {
+            if (padrao != null) {
+                propriedades.load(new InputStreamReader(padrao, StandardCharsets.UTF_8));
+            }
+        }
+        if (arquivo != null && !arquivo.isBlank()) {
+            try (Reader externo = Files.newBufferedReader(Path.of(arquivo), StandardCharsets.UTF_8)) {
+                propriedades.load(externo);
+            }
+        }
+        // Propriedades de sistema (-Dcarga.alvo.url=...) têm a palavra final.
+        for (String nome : System.getProperties().stringPropertyNames()) {
+            if (nome.startsWith("carga.") && !nome.equals("carga.config")) {
+                propriedades.setProperty(nome.substring("carga.".length()), System.getProperty(nome));
+            }
+        }
+        return new ConfiguracaoCarga(propriedades);
+    }
+
+    public String getUrlAlvo() {
+        String url = propriedades.getProperty("alvo.url", "http://localhost:8080");
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    public int getInt(String chave, int padrao) {
+        String valor = propriedades.getProperty(chave);
+        return valor == null || valor.isBlank() ? padrao : Integer.parseInt(valor.trim());
+    }
+
+    public double getDouble(String chave, double padrao) {
+        String valor = propriedades.getProperty(chave);
+        return valor == null || valor.isBlank() ? padrao : Double.parseDouble(valor.trim());
+    }
+
+    public List<Fase> getFases() {
+        List<Fase> fases = new ArrayList<>();
+        for (String trecho : propriedades.getProperty("fases", "60:10").split(",")) {
+            String[] partes = trecho.trim().split(":");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Fase inválida (use duracaoSegundos:chegadasPorSegundo): " + trecho);
+            }
+            fases.add(new Fase(Integer.parseInt(partes[0].trim()), Double.parseDouble(partes[1].trim())));
+        }
+        return fases;
+    }
+
+    public Map<Operacao, Integer> getMix() {
+        Map<Operacao, Integer> mix = new LinkedHashMap<>();
+        for (Operacao operacao : Operacao.values()) {
+            int peso = getInt("mix." + operacao.getChave(), 0);
+            if (peso > 0) {
+                mix.put(operacao, peso);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Nenhuma operação com peso > 0 em mix.*");
+        }
+        return mix;
+    }
+
+    public OptionalDouble getSlo(String endpoint, String metrica) {
+        String valor = propriedades.getProperty("slo." + endpoint + "." + metrica);
+        if (valor == null) {
+            valor = propriedades.getProperty("slo.padrao." + metrica);
+        }
+        return valor == null || valor.isBlank() ? OptionalDouble.empty() : OptionalDouble.of(Double.parseDouble(valor.trim()));
+    }
+}
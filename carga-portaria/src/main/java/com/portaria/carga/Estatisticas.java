@@ -0,0 +1,116 @@
+package com.portaria.carga;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+public class Estatisticas {
+
+    public enum Resultado { SUCESSO, REJEITADO, ERRO }
+
+    private static class Registro {
+        // Separadas pelo que cruzou ou não uma verificação de atrasos da aplicação.
+        final ConcurrentLinkedQueue<Long> comAlarmeNanos = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<Long> semAlarmeNanos = new ConcurrentLinkedQueue<>();
+        final LongAdder sucessos = new LongAdder();
+        final LongAdder rejeitados = new LongAdder();
+        final LongAdder erros = new LongAdder();
+    }
+
+    private final Map<String, Registro> porEndpoint = new ConcurrentHashMap<>();
+
+    public void registrar(String endpoint, long latenciaNanos, Resultado resultado, boolean comAlarme) {
+        Registro registro = porEndpoint.computeIfAbsent(endpoint, e -> new Registro());
+        (comAlarme ? registro.comAlarmeNanos : registro.semAlarmeNanos).add(latenciaNanos);
+        switch (resultado) {
+            case SUCESSO -> registro.sucessos.increment();
+            case REJEITADO -> registro.rejeitados.increment();
+            case ERRO -> registro.erros.increment();
+        }
+    }
+
+    // Imprime a tabela por endpoint e devolve a lista de SLOs violados (vazia se todos foram cumpridos).
+    public List<String> relatorio(double duracaoSegundos, ConfiguracaoCarga config) {
+        List<String> violacoes = new ArrayList<>();
+
+        System.out.println();
+        System.out.printf("%-14s %8s %9s %9s %9s %9s %9s %8s %8s%n",
+            "endpoint", "total", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "rejeit.", "erro %");
+
+        for (Map.Entry<String, Registro> entrada : new TreeMap<>(porEndpoint).entrySet()) {
+            String endpoint = entrada.getKey();
+            Registro registro = entrada.getValue();
+
+            long[] latencias = Stream.concat(registro.comAlarmeNanos.stream(), registro.semAlarmeNanos.stream())
+                .mapToLong(Long::longValue).toArray();
+            Arrays.sort(latencias);
+            long total = latencias.length;
+            double p50 = percentilMs(latencias, 50);
+            double p95 = percentilMs(latencias, 95);
+            double p99 = percentilMs(latencias, 99);
+            double max = total == 0 ? 0 : latencias[latencias.length - 1] / 1_000_000.0;
+            double taxaErro = total == 0 ? 0 : 100.0 * registro.erros.sum() / total;
+
+            System.out.printf("%-14s %8d %9.1f %9.1f %9.1f %9.1f %9.1f %8d %8.2f%n",
+                endpoint, total, total / duracaoSegundos, p50, p95, p99, max, registro.rejeitados.sum(), taxaErro);
+
+            verificar(config, endpoint, "p50-ms", p50, violacoes);
+            verificar(config, endpoint, "p95-ms", p95, violacoes);
+            verificar(config, endpoint, "p99-ms", p99, violacoes);
+            verificar(config, endpoint, "erro-max", taxaErro, violacoes);
+        }
+
+        System.out.println();
+        if (violacoes.isEmpty()) {
+            System.out.println("SLOs cumpridos.");
+        } else {
+            System.out.println("SLOs VIOLADOS:");
+            violacoes.forEach(v -> System.out.println("  - " + v));
+        }
+        return violacoes;
+    }
+
+    // Mesmas latências separadas pelo que cruzou a verificação de atrasos (janela inicial de cada ciclo)
+    // e o resto; só informativo, os SLOs valem sobre o total.
+    public void relatorioAlarme(long periodoMs, long janelaMs) {
+        if (periodoMs <= 0) {
+            return;
+        }
+        System.out.println();
+        System.out.printf("Com e sem a verificação de atrasos (primeiros %d ms de cada ciclo de %d ms):%n", janelaMs, periodoMs);
+        System.out.printf("%-14s %8s %9s %9s %8s %9s %9s%n",
+            "endpoint", "com", "p95 ms", "p99 ms", "sem", "p95 ms", "p99 ms");
+
+        for (Map.Entry<String, Registro> entrada : new TreeMap<>(porEndpoint).entrySet()) {
+            Registro registro = entrada.getValue();
+            long[] com = registro.comAlarmeNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            long[] sem = registro.semAlarmeNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+
+            System.out.printf("%-14s %8d %9.1f %9.1f %8d %9.1f %9.1f%n",
+                entrada.getKey(), com.length, percentilMs(com, 95), percentilMs(com, 99),
+                sem.length, percentilMs(sem, 95), percentilMs(sem, 99));
+        }
+    }
+
+    private void verificar(ConfiguracaoCarga config, String endpoint, String metrica, double observado, List<String> violacoes) {
+        OptionalDouble limite = config.getSlo(endpoint, metrica);
+        if (limite.isPresent() && observado > limite.getAsDouble()) {
+            violacoes.add(String.format("%s %s: %.1f (limite %.1f)", endpoint, metrica, observado, limite.getAsDouble()));
+        }
+    }
+
+    private static double percentilMs(long[] ordenadas, double percentil) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posicao = (int) Math.ceil(percentil / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(posicao, ordenadas.length - 1))] / 1_000_000.0;
+    }
+}
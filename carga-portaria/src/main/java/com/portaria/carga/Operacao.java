@@ -0,0 +1,19 @@
+package com.portaria.carga;
+
+public enum Operacao {
+    RETIRADA("retirada"),
+    DEVOLUCAO("devolucao"),
+    DASHBOARD("dashboard"),
+    HISTORICO("historico"),
+    ATIVAS("ativas");
+
+    private final String chave;
+
+    Operacao(String chave) {
+        this.chave = chave;
+    }
+
+    public String getChave() {
+        return chave;
+    }
+}
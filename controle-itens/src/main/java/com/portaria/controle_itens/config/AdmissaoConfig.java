@@ -0,0 +1,50 @@
+package com.portaria.controle_itens.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+@Configuration
+@ConditionalOnProperty(name = "app.admissao.habilitado", havingValue = "true", matchIfMissing = true)
+public class AdmissaoConfig {
+
+    @Bean
+    public ControleAdmissao controleAdmissao(Environment env, MeterRegistry meterRegistry) {
+        return new ControleAdmissao(
+            (grupo, rota) -> switch (grupo) {
+                case PORTARIA -> limitador(env, "portaria", rota, 20, 4, 200);
+                case LEITURA -> limitador(env, "leitura", rota, 20, 2, 200);
+                case OUTROS -> limitador(env, "outros", rota, 10, 2, 100);
+            },
+            env.getProperty("app.admissao.leitura.ceder-acima", Double.class, 0.75),
+            env.getProperty("app.admissao.maximo-rotas", Integer.class, 200),
+            meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ControleAdmissaoFilter> controleAdmissaoFilter(ControleAdmissao controleAdmissao, Environment env) {
+        FilterRegistrationBean<ControleAdmissaoFilter> registro = new FilterRegistrationBean<>(
+            new ControleAdmissaoFilter(controleAdmissao, env.getProperty("app.admissao.retry-after-segundos", Integer.class, 1)));
+        registro.addUrlPatterns("/api/*");
+        // Antes dos demais filtros: a recusa precisa custar o mínimo possível.
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registro;
+    }
+
+    private LimitadorAdaptativo limitador(Environment env, String grupo, String rota, int inicial, int minimo, int maximo) {
+        String prefixo = "app.admissao." + grupo + ".";
+        return new LimitadorAdaptativo(
+            rota,
+            env.getProperty(prefixo + "limite-inicial", Integer.class, inicial),
+            env.getProperty(prefixo + "limite-minimo", Integer.class, minimo),
+            env.getProperty(prefixo + "limite-maximo", Integer.class, maximo),
+            env.getProperty("app.admissao.tolerancia-latencia", Double.class, 2.0),
+            env.getProperty("app.admissao.latencia-maxima-ms", Long.class, 2000L),
+            env.getProperty("app.admissao.fator-reducao", Double.class, 0.9),
+            env.getProperty("app.admissao.amostras-por-ajuste", Integer.class, 20));
+    }
+}
@@ -0,0 +1,12 @@
+package com.portaria.controle_itens.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Desligável para os testes com várias instâncias, que chamam as tarefas diretamente.
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.agendamento.habilitado", havingValue = "true", matchIfMissing = true)
+public class AgendamentoConfig {
+}
@@ -0,0 +1,22 @@
+package com.portaria.controle_itens.config;
+
+// Marca, por thread, se a requisição atual pode ser atendida pela réplica.
+// Fora de requisições HTTP (tarefas agendadas) o padrão é sempre o primário.
+public final class ContextoLeitura {
+
+    private static final ThreadLocal<Boolean> REPLICA_PERMITIDA = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private ContextoLeitura() {}
+
+    public static boolean isReplicaPermitida() {
+        return REPLICA_PERMITIDA.get();
+    }
+
+    static void permitirReplica(boolean permitida) {
+        REPLICA_PERMITIDA.set(permitida);
+    }
+
+    static void limpar() {
+        REPLICA_PERMITIDA.remove();
+    }
+}
@@ -0,0 +1,107 @@
+package com.portaria.controle_itens.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+// Um limitador por rota (método + caminho com ids trocados por {id}), cada um com a própria latência
+// de referência: uma leitura barata e um relatório pesado não se confundem. As rotas se dividem em grupos
+// e retiradas e devoluções da portaria têm prioridade: quando alguma rota delas passa de "cederAcima"
+// de uso, as leituras do dashboard e do histórico ficam com metade do limite e são recusadas primeiro.
+public class ControleAdmissao {
+
+    public enum Grupo { PORTARIA, LEITURA, OUTROS }
+
+    public record Rota(Grupo grupo, String chave) {
+    }
+
+    private static final Pattern SEGMENTO_ID = Pattern.compile("/\\d+(?=/|$)");
+
+    private final BiFunction<Grupo, String, LimitadorAdaptativo> fabrica;
+    private final double cederAcima;
+    private final int maximoRotas;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, LimitadorAdaptativo> limitadores = new ConcurrentHashMap<>();
+    private final Map<Grupo, LimitadorAdaptativo> demaisRotas = new ConcurrentHashMap<>();
+    private final List<LimitadorAdaptativo> limitadoresPortaria = new CopyOnWriteArrayList<>();
+
+    public ControleAdmissao(BiFunction<Grupo, String, LimitadorAdaptativo> fabrica, double cederAcima,
+                            int maximoRotas, MeterRegistry meterRegistry) {
+        this.fabrica = fabrica;
+        this.cederAcima = cederAcima;
+        this.maximoRotas = maximoRotas;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // null = requisição fora do controle (arquivos estáticos, stream de eventos, actuator).
+    public Rota classificar(HttpServletRequest request) {
+        String caminho = request.getRequestURI();
+        if (!caminho.startsWith("/api/") || caminho.startsWith("/api/eventos/")) {
+            return null;
+        }
+        String metodo = request.getMethod().toUpperCase();
+        String chave = metodo + " " + SEGMENTO_ID.matcher(caminho).replaceAll("/{id}");
+
+        if ("POST".equals(metodo) && (caminho.startsWith("/api/movimentacao/retirar/")
+                || caminho.startsWith("/api/movimentacao/devolver/")
+                || caminho.startsWith("/api/movimentacao/transferir/"))) {
+            return new Rota(Grupo.PORTARIA, chave);
+        }
+        if ("GET".equals(metodo) || "HEAD".equals(metodo)) {
+            return new Rota(Grupo.LEITURA, chave);
+        }
+        return new Rota(Grupo.OUTROS, chave);
+    }
+
+    public LimitadorAdaptativo limitador(Rota rota) {
+        LimitadorAdaptativo limitador = limitadores.get(rota.chave());
+        if (limitador != null) {
+            return limitador;
+        }
+        // Caminhos com texto livre (ex.: nome de usuário) não podem criar limitadores sem fim.
+        if (limitadores.size() >= maximoRotas) {
+            return demaisRotas.computeIfAbsent(rota.grupo(), grupo -> criar(grupo, grupo.name() + " (demais rotas)"));
+        }
+        return limitadores.computeIfAbsent(rota.chave(), chave -> criar(rota.grupo(), chave));
+    }
+
+    // Devolve o limitador em que a requisição entrou (a saída precisa ser no mesmo), ou null se recusada.
+    public LimitadorAdaptativo tentarEntrar(Rota rota) {
+        LimitadorAdaptativo limitador = limitador(rota);
+        double fracao = rota.grupo() == Grupo.LEITURA && isPortariaSobPressao() ? 0.5 : 1.0;
+        return limitador.tentarEntrar(fracao) ? limitador : null;
+    }
+
+    public boolean isPortariaSobPressao() {
+        for (LimitadorAdaptativo limitador : limitadoresPortaria) {
+            if (limitador.getUtilizacao() >= cederAcima) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LimitadorAdaptativo criar(Grupo grupo, String nome) {
+        LimitadorAdaptativo limitador = fabrica.apply(grupo, nome);
+        if (grupo == Grupo.PORTARIA) {
+            limitadoresPortaria.add(limitador);
+        }
+        String grupoTag = grupo.name().toLowerCase();
+        Gauge.builder("admissao.limite", limitador, LimitadorAdaptativo::getLimite)
+            .tag("grupo", grupoTag).tag("rota", nome).register(meterRegistry);
+        Gauge.builder("admissao.em_andamento", limitador, LimitadorAdaptativo::getEmAndamento)
+            .tag("grupo", grupoTag).tag("rota", nome).register(meterRegistry);
+        FunctionCounter.builder("admissao.rejeitadas", limitador, LimitadorAdaptativo::getRejeitadas)
+            .tag("grupo", grupoTag).tag("rota", nome).register(meterRegistry);
+        return limitador;
+    }
+}
@@ -0,0 +1,52 @@
+package com.portaria.controle_itens.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Recusa na entrada, com 503 + Retry-After, o que passaria do limite da rota, em vez de deixar
+// a thread do Tomcat esperando o banco e travando também as páginas e arquivos estáticos.
+public class ControleAdmissaoFilter extends OncePerRequestFilter {
+
+    private final ControleAdmissao controleAdmissao;
+    private final int retryAfterSegundos;
+
+    public ControleAdmissaoFilter(ControleAdmissao controleAdmissao, int retryAfterSegundos) {
+        this.controleAdmissao = controleAdmissao;
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ControleAdmissao.Rota rota = controleAdmissao.classificar(request);
+        if (rota == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        LimitadorAdaptativo limitador = controleAdmissao.tentarEntrar(rota);
+        if (limitador == null) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", String.valueOf(retryAfterSegundos));
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getOutputStream().write("Servidor ocupado. Tente novamente em instantes.".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        boolean falhou = true;
+        try {
+            filterChain.doFilter(request, response);
+            falhou = response.getStatus() >= 500;
+        } finally {
+            limitador.sair(System.nanoTime() - inicio, falhou);
+        }
+    }
+}
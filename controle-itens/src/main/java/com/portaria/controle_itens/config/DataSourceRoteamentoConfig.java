@@ -0,0 +1,82 @@
+package com.portaria.controle_itens.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Ativada por app.datasource.replica.enabled=true. Transações @Transactional(readOnly = true)
+// de requisições GET vão para a réplica; todo o resto continua no primário.
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class DataSourceRoteamentoConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Qualifier("replicaDataSourceProperties") DataSourceProperties replicaProperties) {
+        return replicaProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(initMethod = "iniciar")
+    public MonitorReplica monitorReplica(@Qualifier("primarioDataSource") DataSource primario,
+                                         @Qualifier("replicaDataSource") DataSource replica,
+                                         IdentificadorInstancia instancia,
+                                         @Value("${app.datasource.replica.atraso-maximo-ms:2000}") long atrasoMaximoMs) {
+        return new MonitorReplica(primario, replica, instancia.getId(), atrasoMaximoMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primarioDataSource") DataSource primario,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 MonitorReplica monitorReplica) {
+        RoteamentoDataSource roteamento = new RoteamentoDataSource(monitorReplica);
+        roteamento.setTargetDataSources(Map.of(
+            RoteamentoDataSource.Destino.PRIMARIO, primario,
+            RoteamentoDataSource.Destino.REPLICA, replica));
+        roteamento.setDefaultTargetDataSource(primario);
+        roteamento.afterPropertiesSet();
+        // A conexão só é obtida no primeiro comando, quando o readOnly da transação já é conhecido.
+        return new LazyConnectionDataSourceProxy(roteamento);
+    }
+
+    @Bean
+    public FilterRegistrationBean<LeituraConsistenteFilter> leituraConsistenteFilter(
+            MonitorReplica monitorReplica,
+            @Value("${app.datasource.replica.janela-leitura-propria-ms:5000}") long janelaMinimaMs,
+            @Value("${app.datasource.replica.validade-cookie-segundos:60}") int validadeCookieSegundos) {
+        FilterRegistrationBean<LeituraConsistenteFilter> registro = new FilterRegistrationBean<>(
+            new LeituraConsistenteFilter(monitorReplica, janelaMinimaMs, validadeCookieSegundos));
+        registro.addUrlPatterns("/api/*");
+        return registro;
+    }
+}
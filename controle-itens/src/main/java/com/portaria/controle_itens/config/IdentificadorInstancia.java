@@ -0,0 +1,32 @@
+package com.portaria.controle_itens.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+@Component
+public class IdentificadorInstancia {
+
+    private final String id;
+
+    public IdentificadorInstancia(@Value("${app.instancia.id:}") String idConfigurado) {
+        this.id = (idConfigurado == null || idConfigurado.isBlank()) ? gerarId() : idConfigurado;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String gerarId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "instancia";
+        }
+        // O sufixo aleatório diferencia várias instâncias rodando na mesma máquina.
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
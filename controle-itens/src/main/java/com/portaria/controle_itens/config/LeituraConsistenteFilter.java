@@ -0,0 +1,72 @@
+package com.portaria.controle_itens.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Garante "ler o que escreveu": depois de uma escrita, o mesmo cliente lê do primário
+// até que a réplica tenha tido tempo de alcançá-la. O marcador fica num cookie,
+// então vale em qualquer instância atrás do balanceador.
+public class LeituraConsistenteFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_ULTIMA_ESCRITA = "ultima_escrita";
+
+    private final MonitorReplica monitorReplica;
+    private final long janelaMinimaMs;
+    private final int validadeCookieSegundos;
+
+    public LeituraConsistenteFilter(MonitorReplica monitorReplica, long janelaMinimaMs, int validadeCookieSegundos) {
+        this.monitorReplica = monitorReplica;
+        this.janelaMinimaMs = janelaMinimaMs;
+        this.validadeCookieSegundos = validadeCookieSegundos;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long agora = System.currentTimeMillis();
+
+        if (isLeitura(request)) {
+            Long ultimaEscrita = lerUltimaEscrita(request);
+            long janela = Math.max(janelaMinimaMs, monitorReplica.getAtrasoMs());
+            ContextoLeitura.permitirReplica(ultimaEscrita == null || agora - ultimaEscrita > janela);
+        } else {
+            Cookie cookie = new Cookie(COOKIE_ULTIMA_ESCRITA, String.valueOf(agora));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge(validadeCookieSegundos);
+            response.addCookie(cookie);
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ContextoLeitura.limpar();
+        }
+    }
+
+    private boolean isLeitura(HttpServletRequest request) {
+        return "GET".equalsIgnoreCase(request.getMethod()) || "HEAD".equalsIgnoreCase(request.getMethod());
+    }
+
+    private Long lerUltimaEscrita(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return null;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE_ULTIMA_ESCRITA.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,137 @@
+package com.portaria.controle_itens.config;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Limite de requisições simultâneas de uma rota, ajustado pela latência observada (AIMD).
+// O sinal é a mediana de cada janela de "amostrasPorAjuste" respostas, suavizada entre janelas:
+// uma resposta lenta isolada não mexe no limite, uma fila se formando no banco sim.
+// Ao fim de cada janela: latência acima de tolerancia x a menor já vista (ou do teto), ou 10% de falhas,
+// reduz o limite pelo fator; senão, se o limite esteve em uso, ele cresce uma unidade.
+public class LimitadorAdaptativo {
+
+    private static final double SUAVIZACAO = 0.5;
+    private static final long JANELA_BASE_NANOS = 30_000_000_000L;
+
+    private final String nome;
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final double tolerancia;
+    private final long latenciaMaximaNanos;
+    private final double fatorReducao;
+    private final LongSupplier relogio;
+
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private final AtomicInteger picoEmAndamento = new AtomicInteger();
+    private final AtomicLong rejeitadas = new AtomicLong();
+
+    private volatile double limite;
+
+    // Estado da janela atual e da referência; protegido pelo monitor do limitador.
+    private final long[] latencias;
+    private int amostras;
+    private int falhas;
+    private double latenciaSuavizada = -1;
+    private double latenciaBase = Double.MAX_VALUE;
+    private double latenciaBaseProxima = Double.MAX_VALUE;
+    private long inicioJanelaBase;
+
+    public LimitadorAdaptativo(String nome, int limiteInicial, int limiteMinimo, int limiteMaximo,
+                               double tolerancia, long latenciaMaximaMs, double fatorReducao, int amostrasPorAjuste) {
+        this(nome, limiteInicial, limiteMinimo, limiteMaximo, tolerancia, latenciaMaximaMs, fatorReducao, amostrasPorAjuste, System::nanoTime);
+    }
+
+    // O relógio (em nanossegundos) é trocado nos testes.
+    LimitadorAdaptativo(String nome, int limiteInicial, int limiteMinimo, int limiteMaximo, double tolerancia,
+                        long latenciaMaximaMs, double fatorReducao, int amostrasPorAjuste, LongSupplier relogio) {
+        this.nome = nome;
+        this.limiteMinimo = Math.max(1, limiteMinimo);
+        this.limiteMaximo = Math.max(this.limiteMinimo, limiteMaximo);
+        this.limite = Math.min(this.limiteMaximo, Math.max(this.limiteMinimo, limiteInicial));
+        this.tolerancia = tolerancia;
+        this.latenciaMaximaNanos = latenciaMaximaMs * 1_000_000L;
+        this.fatorReducao = fatorReducao;
+        this.latencias = new long[Math.max(1, amostrasPorAjuste)];
+        this.relogio = relogio;
+        this.inicioJanelaBase = relogio.getAsLong();
+    }
+
+    // fracao < 1 reserva parte do limite; usado para leituras cederem espaço à portaria.
+    public boolean tentarEntrar(double fracao) {
+        int permitido = Math.max(1, (int) Math.floor(limite * fracao));
+        int andamento = emAndamento.incrementAndGet();
+        if (andamento > permitido) {
+            emAndamento.decrementAndGet();
+            rejeitadas.incrementAndGet();
+            return false;
+        }
+        picoEmAndamento.accumulateAndGet(andamento, Math::max);
+        return true;
+    }
+
+    public void sair(long latenciaNanos, boolean falhou) {
+        emAndamento.decrementAndGet();
+        registrar(latenciaNanos, falhou);
+    }
+
+    private synchronized void registrar(long latenciaNanos, boolean falhou) {
+        latencias[amostras++] = latenciaNanos;
+        if (falhou) {
+            falhas++;
+        }
+        if (amostras < latencias.length) {
+            return;
+        }
+
+        long[] ordenadas = Arrays.copyOf(latencias, amostras);
+        Arrays.sort(ordenadas);
+        double mediana = ordenadas[ordenadas.length / 2];
+        latenciaSuavizada = latenciaSuavizada < 0 ? mediana : latenciaSuavizada + SUAVIZACAO * (mediana - latenciaSuavizada);
+
+        // A referência é a menor latência suavizada da janela de 30 s anterior, para acompanhar
+        // mudanças de base (ex.: banco mais lento o dia todo) sem perder a comparação.
+        long agora = relogio.getAsLong();
+        if (agora - inicioJanelaBase > JANELA_BASE_NANOS) {
+            latenciaBase = Math.min(latenciaBaseProxima, latenciaSuavizada);
+            latenciaBaseProxima = Double.MAX_VALUE;
+            inicioJanelaBase = agora;
+        }
+        latenciaBaseProxima = Math.min(latenciaBaseProxima, latenciaSuavizada);
+        latenciaBase = Math.min(latenciaBase, latenciaSuavizada);
+
+        boolean lenta = latenciaSuavizada > latenciaMaximaNanos || latenciaSuavizada > latenciaBase * tolerancia;
+        boolean comFalhas = falhas * 10 >= amostras;
+        if (lenta || comFalhas) {
+            limite = Math.max(limiteMinimo, limite * fatorReducao);
+        } else if (picoEmAndamento.get() >= limite / 2) {
+            // Só cresce quando o limite atual esteve de fato em uso.
+            limite = Math.min(limiteMaximo, limite + 1);
+        }
+
+        amostras = 0;
+        falhas = 0;
+        picoEmAndamento.set(emAndamento.get());
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public int getLimite() {
+        return (int) Math.floor(limite);
+    }
+
+    public int getEmAndamento() {
+        return emAndamento.get();
+    }
+
+    public long getRejeitadas() {
+        return rejeitadas.get();
+    }
+
+    public double getUtilizacao() {
+        return emAndamento.get() / Math.max(1.0, limite);
+    }
+}
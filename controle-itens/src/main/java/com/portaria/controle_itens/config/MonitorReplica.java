@@ -0,0 +1,67 @@
+package com.portaria.controle_itens.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+// Mede o atraso da réplica por uma linha de heartbeat gravada no primário e lida na réplica.
+// Cada instância tem a sua linha e compara com o próprio relógio, então a diferença de
+// horário entre máquinas não entra no atraso medido.
+public class MonitorReplica {
+
+    private final JdbcTemplate primario;
+    private final JdbcTemplate replica;
+    private final String instancia;
+    private final long atrasoMaximoMs;
+
+    private volatile long atrasoMs = Long.MAX_VALUE;
+    private volatile boolean disponivel = false;
+
+    public MonitorReplica(DataSource primario, DataSource replica, String instancia, long atrasoMaximoMs) {
+        this.primario = new JdbcTemplate(primario);
+        this.replica = new JdbcTemplate(replica);
+        this.instancia = instancia;
+        this.atrasoMaximoMs = atrasoMaximoMs;
+    }
+
+    public void iniciar() {
+        primario.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat_instancia (instancia VARCHAR(255) PRIMARY KEY, atualizado_em BIGINT NOT NULL)");
+        verificar();
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.verificacao-ms:1000}")
+    public void verificar() {
+        try {
+            long agora = System.currentTimeMillis();
+            if (primario.update("UPDATE replica_heartbeat_instancia SET atualizado_em = ? WHERE instancia = ?", agora, instancia) == 0) {
+                primario.update("INSERT INTO replica_heartbeat_instancia (instancia, atualizado_em) VALUES (?, ?)", instancia, agora);
+            }
+        } catch (Exception e) {
+            System.out.println("Falha ao gravar heartbeat da réplica: " + e.getMessage());
+        }
+
+        try {
+            Long ultimo = replica.queryForObject("SELECT atualizado_em FROM replica_heartbeat_instancia WHERE instancia = ?", Long.class, instancia);
+            atrasoMs = ultimo == null ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - ultimo);
+        } catch (Exception e) {
+            atrasoMs = Long.MAX_VALUE;
+        }
+
+        boolean estavaDisponivel = disponivel;
+        disponivel = atrasoMs <= atrasoMaximoMs;
+        if (estavaDisponivel != disponivel) {
+            System.out.println(disponivel
+                ? "Réplica disponível para leitura (atraso " + atrasoMs + " ms)."
+                : "Réplica fora de uso: atraso acima de " + atrasoMaximoMs + " ms ou inacessível. Leituras seguem no primário.");
+        }
+    }
+
+    public boolean isDisponivel() {
+        return disponivel;
+    }
+
+    public long getAtrasoMs() {
+        return atrasoMs;
+    }
+}
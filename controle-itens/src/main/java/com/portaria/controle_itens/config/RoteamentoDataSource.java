@@ -0,0 +1,25 @@
+package com.portaria.controle_itens.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    public enum Destino { PRIMARIO, REPLICA }
+
+    private final MonitorReplica monitorReplica;
+
+    public RoteamentoDataSource(MonitorReplica monitorReplica) {
+        this.monitorReplica = monitorReplica;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (ContextoLeitura.isReplicaPermitida()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && monitorReplica.isDisponivel()) {
+            return Destino.REPLICA;
+        }
+        return Destino.PRIMARIO;
+    }
+}
@@ -1,10 +1,20 @@
 package com.portaria.controle_itens.controller;
 
-import com.portaria.controle_itens.model.AuditoriaLog;
+import com.portaria.controle_itens.model.AuditoriaCompleta;
+import com.portaria.controle_itens.model.AuditoriaDetalhe;
 import com.portaria.controle_itens.repository.AuditoriaLogRepository;
+import com.portaria.controle_itens.service.AuditoriaService;
+import com.portaria.controle_itens.service.PaginaAuditoria;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/auditoria")
@@ -14,8 +24,68 @@ public class AuditoriaController {
     @Autowired
     private AuditoriaLogRepository auditoriaLogRepository;
 
+    @Autowired
+    private AuditoriaService auditoriaService;
+
     @GetMapping
-    public List<AuditoriaLog> listarLogs() {
-        return auditoriaLogRepository.findAllByOrderByDataRegistroDesc();
+    @Transactional(readOnly = true)
+    public List<AuditoriaCompleta> listarLogs() {
+        return auditoriaLogRepository.listarCompleta();
+    }
+
+    // Linhas do tempo paginadas por cursor: sem detalhes, que ficam em /{id}/detalhes.
+    // O intervalo é [de, ate): "de" entra e "ate" não, para períodos seguidos (um dia, o seguinte)
+    // não repetirem o registro da fronteira. antesDe/antesId vêm de proximoCursor* da página anterior.
+
+    @GetMapping("/timeline")
+    public PaginaAuditoria linhaDoTempo(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDe,
+            @RequestParam(required = false) Long antesId,
+            @RequestParam(defaultValue = "50") int tamanho) {
+        return auditoriaService.linhaDoTempo(de, ate, antesDe, antesId, tamanho);
+    }
+
+    @GetMapping("/item/{itemId}")
+    public PaginaAuditoria linhaDoTempoPorItem(
+            @PathVariable Long itemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDe,
+            @RequestParam(required = false) Long antesId,
+            @RequestParam(defaultValue = "50") int tamanho) {
+        return auditoriaService.linhaDoTempoPorItem(itemId, de, ate, antesDe, antesId, tamanho);
+    }
+
+    @GetMapping("/acao/{acao}")
+    public PaginaAuditoria linhaDoTempoPorAcao(
+            @PathVariable String acao,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDe,
+            @RequestParam(required = false) Long antesId,
+            @RequestParam(defaultValue = "50") int tamanho) {
+        return auditoriaService.linhaDoTempoPorAcao(acao.toUpperCase(), de, ate, antesDe, antesId, tamanho);
+    }
+
+    @GetMapping("/usuario/{usuario}")
+    public PaginaAuditoria linhaDoTempoPorUsuario(
+            @PathVariable String usuario,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDe,
+            @RequestParam(required = false) Long antesId,
+            @RequestParam(defaultValue = "50") int tamanho) {
+        return auditoriaService.linhaDoTempoPorUsuario(usuario, de, ate, antesDe, antesId, tamanho);
+    }
+
+    @GetMapping("/{id}/detalhes")
+    public ResponseEntity<?> buscarDetalhes(@PathVariable Long id) {
+        Optional<AuditoriaDetalhe> detalhe = auditoriaService.buscarDetalhes(id);
+        if (detalhe.isEmpty()) {
+            return new ResponseEntity<>("Registro sem detalhes ou inexistente.", HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok(detalhe.get());
     }
-}
\ No newline at end of file
+}
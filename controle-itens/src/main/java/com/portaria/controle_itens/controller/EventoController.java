@@ -0,0 +1,40 @@
+package com.portaria.controle_itens.controller;
+
+import com.portaria.controle_itens.service.AlteracaoEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@RestController
+@RequestMapping("/api/eventos")
+@CrossOrigin(origins = "*")
+public class EventoController {
+
+    private final List<SseEmitter> assinantes = new CopyOnWriteArrayList<>();
+
+    @GetMapping("/stream")
+    public SseEmitter assinar() {
+        SseEmitter emitter = new SseEmitter(0L);
+        assinantes.add(emitter);
+        emitter.onCompletion(() -> assinantes.remove(emitter));
+        emitter.onTimeout(() -> assinantes.remove(emitter));
+        emitter.onError(e -> assinantes.remove(emitter));
+        return emitter;
+    }
+
+    // Os eventos chegam pelo log de alterações do banco, então assinantes de
+    // qualquer instância recebem também as mudanças feitas pelas demais.
+    @EventListener
+    public void aoAlterar(AlteracaoEvent evento) {
+        for (SseEmitter emitter : assinantes) {
+            try {
+                emitter.send(SseEmitter.event().name("alteracao").data(evento));
+            } catch (Exception e) {
+                assinantes.remove(emitter);
+            }
+        }
+    }
+}
@@ -2,17 +2,25 @@ package com.portaria.controle_itens.controller;
 
 import com.portaria.controle_itens.model.Estoque;
 import com.portaria.controle_itens.model.Item;
+import com.portaria.controle_itens.model.Local;
 import com.portaria.controle_itens.model.Movimentacao;
+import com.portaria.controle_itens.repository.DivergenciaEstoqueRepository;
 import com.portaria.controle_itens.repository.EstoqueRepository;
 import com.portaria.controle_itens.repository.ItemRepository;
 import com.portaria.controle_itens.repository.MovimentacaoRepository;
+import com.portaria.controle_itens.repository.ReservaRepository;
 import com.portaria.controle_itens.service.AuditoriaService;
+import com.portaria.controle_itens.service.EstoqueService;
+import com.portaria.controle_itens.service.EventoAlteracaoService;
+import com.portaria.controle_itens.service.MigracaoService;
+import com.portaria.controle_itens.service.ReservaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -34,6 +42,24 @@ public class ItemController {
     @Autowired
     private AuditoriaService auditoriaService;
 
+    @Autowired
+    private EventoAlteracaoService eventoAlteracaoService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private MigracaoService migracaoService;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private DivergenciaEstoqueRepository divergenciaEstoqueRepository;
+
     @PostMapping
     public ResponseEntity<?> criarItemEmVolume(@RequestBody Map<String, Object> requisicao) {
         String nome = (String) requisicao.get("nome");
@@ -45,6 +71,15 @@ public class ItemController {
             return new ResponseEntity<>("Nome e Quantidade Total (> 0) são obrigatórios.", HttpStatus.BAD_REQUEST);
         }
 
+        Long localId = null;
+        Object localObj = requisicao.get("localId");
+        if (localObj instanceof Number) localId = ((Number) localObj).longValue();
+
+        Optional<Local> localOpt = estoqueService.resolverLocal(localId);
+        if (localOpt.isEmpty()) {
+            return new ResponseEntity<>("Local não encontrado.", HttpStatus.NOT_FOUND);
+        }
+
         Item novoItem = new Item();
         novoItem.setNome(nome);
         novoItem.setPatrimonio((String) requisicao.get("patrimonio"));
@@ -53,16 +88,19 @@ public class ItemController {
 
         Estoque novoEstoque = new Estoque();
         novoEstoque.setItem(itemSalvo);
+        novoEstoque.setLocal(localOpt.get());
         novoEstoque.setQuantidadeTotal(quantidadeTotal);
         novoEstoque.setQuantidadeDisponivel(quantidadeTotal);
         estoqueRepository.save(novoEstoque);
 
         auditoriaService.registrarLog("CRIACAO_ITEM", itemSalvo.getId(), "Novo item criado: " + nome);
+        eventoAlteracaoService.publicar(EventoAlteracaoService.ITEM, itemSalvo.getId(), "CRIACAO");
 
         return new ResponseEntity<>(itemSalvo, HttpStatus.CREATED);
     }
 
     @GetMapping
+    @Transactional(readOnly = true)
     public List<Item> listarTodos() {
         return itemRepository.findAll();
     }
@@ -82,6 +120,7 @@ public class ItemController {
                 item.setDescricao(itemDetalhes.getDescricao());
                 Item atualizado = itemRepository.save(item);
                 auditoriaService.registrarLog("ATUALIZACAO_ITEM", item.getId(), "Item atualizado: " + item.getNome());
+                eventoAlteracaoService.publicar(EventoAlteracaoService.ITEM, item.getId(), "ATUALIZACAO");
                 return ResponseEntity.ok(atualizado);
             }).orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -106,22 +145,29 @@ public class ItemController {
             movimentacaoRepository.save(mov);
         }
 
-        Optional<Estoque> estoque = estoqueRepository.findByItem_Id(id);
-        estoque.ifPresent(e -> estoqueRepository.delete(e));
+        reservaRepository.deleteByItem_Id(id);
+        reservaService.removerPrevisao(id);
+        estoqueRepository.deleteByItem_Id(id);
+        divergenciaEstoqueRepository.deleteByItemId(id);
+        migracaoService.removerEstoqueAntigo(id);
+        estoqueService.removerConsolidado(id);
 
         itemRepository.deleteById(id);
 
         auditoriaService.registrarLog("EXCLUSAO_ITEM", id, "Item excluído: " + nomeItem);
+        eventoAlteracaoService.publicar(EventoAlteracaoService.ITEM, id, "EXCLUSAO");
 
         return ResponseEntity.noContent().build();
     }
 
     @PatchMapping("/estoque/{itemId}")
     public ResponseEntity<?> atualizarEstoqueTotal(@PathVariable Long itemId, @RequestBody Map<String, Integer> requisicao) {
-        Optional<Estoque> estoqueOpt = estoqueRepository.findByItem_Id(itemId);
+        Optional<Item> itemOpt = itemRepository.findById(itemId);
+        Integer localIdReq = requisicao.get("localId");
+        Optional<Local> localOpt = estoqueService.resolverLocal(localIdReq != null ? localIdReq.longValue() : null);
 
-        if (estoqueOpt.isEmpty()) {
-            return new ResponseEntity<>("Estoque não encontrado para este item.", HttpStatus.NOT_FOUND);
+        if (itemOpt.isEmpty() || localOpt.isEmpty()) {
+            return new ResponseEntity<>("Item ou local não encontrado.", HttpStatus.NOT_FOUND);
         }
 
         Integer novaQuantidade = requisicao.get("quantidadeTotal");
@@ -129,15 +175,20 @@ public class ItemController {
             return new ResponseEntity<>("Nova quantidade total inválida.", HttpStatus.BAD_REQUEST);
         }
 
-        Estoque estoque = estoqueOpt.get();
-        int diferenca = novaQuantidade - estoque.getQuantidadeTotal();
-        estoque.setQuantidadeTotal(novaQuantidade);
-        estoque.setQuantidadeDisponivel(Math.max(0, estoque.getQuantidadeDisponivel() + diferenca));
-        estoqueRepository.save(estoque);
+        // Ajustar um local que ainda não tem o item cria a partição dele.
+        Estoque particao = estoqueService.obterOuCriarParticao(itemOpt.get(), localOpt.get());
+        if (estoqueRepository.ajustarTotal(particao.getId(), novaQuantidade, LocalDateTime.now()) == 0) {
+            int fora = estoqueRepository.findById(particao.getId())
+                .map(e -> e.getQuantidadeTotal() - e.getQuantidadeDisponivel()).orElse(0);
+            return new ResponseEntity<>("Nova quantidade total menor que as unidades fora de estoque (" + fora + ").", HttpStatus.CONFLICT);
+        }
+        Estoque estoque = estoqueRepository.findById(particao.getId()).orElseThrow();
+        estoqueService.atualizarConsolidadoAposCommit(itemId);
 
-        String detalhes = String.format("Ajuste de QTD: De %d para %d (Diferença: %+d)",
-                                        estoque.getQuantidadeTotal() - diferenca, novaQuantidade, diferenca);
+        String detalhes = String.format("Ajuste de QTD no local %s: total ajustado para %d (disponível agora: %d)",
+                                        estoque.getLocal().getNome(), novaQuantidade, estoque.getQuantidadeDisponivel());
         auditoriaService.registrarLog("AJUSTE_ESTOQUE", itemId, detalhes);
+        eventoAlteracaoService.publicar(EventoAlteracaoService.ESTOQUE, itemId, "ATUALIZACAO");
 
         return new ResponseEntity<>(estoque, HttpStatus.OK);
     }
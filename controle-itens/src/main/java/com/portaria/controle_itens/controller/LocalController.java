@@ -0,0 +1,45 @@
+package com.portaria.controle_itens.controller;
+
+import com.portaria.controle_itens.model.Local;
+import com.portaria.controle_itens.repository.LocalRepository;
+import com.portaria.controle_itens.service.AuditoriaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/locais")
+@CrossOrigin(origins = "*")
+public class LocalController {
+
+    @Autowired
+    private LocalRepository localRepository;
+
+    @Autowired
+    private AuditoriaService auditoriaService;
+
+    @GetMapping
+    public List<Local> listarTodos() {
+        return localRepository.findAll();
+    }
+
+    @PostMapping
+    public ResponseEntity<?> criarLocal(@RequestBody Map<String, String> requisicao) {
+        String nome = requisicao.get("nome");
+        if (nome == null || nome.isBlank()) {
+            return new ResponseEntity<>("Nome do local é obrigatório.", HttpStatus.BAD_REQUEST);
+        }
+        if (localRepository.findByNome(nome).isPresent()) {
+            return new ResponseEntity<>("Já existe um local com este nome.", HttpStatus.CONFLICT);
+        }
+
+        Local salvo = localRepository.save(new Local(null, nome, requisicao.get("descricao")));
+        auditoriaService.registrarLog("CRIACAO_LOCAL", null, "Novo local criado: " + nome + " (id=" + salvo.getId() + ")");
+
+        return new ResponseEntity<>(salvo, HttpStatus.CREATED);
+    }
+}
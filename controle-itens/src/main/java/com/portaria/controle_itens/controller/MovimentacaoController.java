@@ -1,17 +1,24 @@
 package com.portaria.controle_itens.controller;
 
 import com.portaria.controle_itens.model.Estoque;
+import com.portaria.controle_itens.model.EstoqueConsolidado;
 import com.portaria.controle_itens.model.Item;
+import com.portaria.controle_itens.model.Local;
 import com.portaria.controle_itens.model.Movimentacao;
 import com.portaria.controle_itens.repository.EstoqueRepository;
 import com.portaria.controle_itens.repository.ItemRepository;
 import com.portaria.controle_itens.repository.MovimentacaoRepository;
 import com.portaria.controle_itens.service.AuditoriaService;
+import com.portaria.controle_itens.service.EstoqueService;
+import com.portaria.controle_itens.service.ReservaService;
+import com.portaria.controle_itens.service.EventoAlteracaoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -36,7 +43,17 @@ public class MovimentacaoController {
     @Autowired
     private AuditoriaService auditoriaService;
 
+    @Autowired
+    private EventoAlteracaoService eventoAlteracaoService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ReservaService reservaService;
+
     @PostMapping("/retirar/{itemId}")
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public ResponseEntity<?> registrarRetirada(
             @PathVariable Long itemId, 
             @RequestBody Map<String, Object> requisicao) {
@@ -56,9 +73,13 @@ public class MovimentacaoController {
             return new ResponseEntity<>("A quantidade a ser retirada é obrigatória e deve ser > 0.", HttpStatus.BAD_REQUEST);
         }
 
-        Optional<Estoque> estoqueOpt = estoqueRepository.findByItem_Id(itemId);
+        Long localId = null;
+        Object localObj = requisicao.get("localId");
+        if (localObj instanceof Number) localId = ((Number) localObj).longValue();
+
+        Optional<Estoque> estoqueOpt = estoqueService.buscarParticao(itemId, localId);
         if (estoqueOpt.isEmpty()) {
-             return new ResponseEntity<>("Dados de estoque não encontrados para este item.", HttpStatus.INTERNAL_SERVER_ERROR);
+             return new ResponseEntity<>("Dados de estoque não encontrados para este item neste local.", HttpStatus.NOT_FOUND);
         }
         Estoque estoque = estoqueOpt.get();
         
@@ -75,6 +96,7 @@ public class MovimentacaoController {
         
         Movimentacao movimentacao = new Movimentacao();
         movimentacao.setItem(item);
+        movimentacao.setLocal(estoque.getLocal());
         movimentacao.setItemNome(item.getNome());
         movimentacao.setFuncionarioSolicitante(funcionario);
         movimentacao.setDataRetirada(LocalDateTime.now());
@@ -102,25 +124,54 @@ public class MovimentacaoController {
             return new ResponseEntity<>("Tipo de movimentação inválido. Use RETIRADA ou CEDIDO.", HttpStatus.BAD_REQUEST);
         }
 
-        estoque.setQuantidadeDisponivel(estoque.getQuantidadeDisponivel() - quantidadeRetirada);
-        estoqueRepository.save(estoque);
+        // Sem reserva, a retirada só leva o que não está reservado até a devolução prevista (CEDIDO: todo o horizonte).
+        // Com reserva, ela é atendida antes: suas unidades voltam para a previsão e a retirada inteira é conferida
+        // contra o que sobra, o que cobre o que passar da quantidade reservada ou do período dela. A previsão
+        // fica travada até o commit, então uma reserva do mesmo item não passa ao mesmo tempo.
+        Object reservaObj = requisicao.get("reservaId");
+        Long reservaId = reservaObj instanceof Number ? ((Number) reservaObj).longValue() : null;
+        ReservaService.AlteracaoPrevisao previsao = reservaService.travarPrevisao(itemId, reservaId != null);
+        if (reservaId != null && reservaService.atenderReserva(previsao, reservaId).isEmpty()) {
+            if (reservaService.buscarReserva(reservaId).isEmpty()) {
+                return new ResponseEntity<>("Reserva não encontrada.", HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>("A reserva não está ativa para este item.", HttpStatus.CONFLICT);
+        }
+
+        int livre = previsao.livreAte(movimentacao.getDataPrevistaDevolucao());
+        if (livre < quantidadeRetirada) {
+            desfazerReservaAtendida(reservaId);
+            return new ResponseEntity<>("Retirada invadiria reservas ativas. Livres até a devolução prevista: "
+                    + Math.max(0, livre), HttpStatus.CONFLICT);
+        }
+
+        if (estoqueRepository.retirar(estoque.getId(), quantidadeRetirada, LocalDateTime.now()) == 0) {
+            // Outra retirada no mesmo local consumiu o saldo entre a leitura e a gravação.
+            desfazerReservaAtendida(reservaId);
+            return new ResponseEntity<>("Estoque insuficiente. Disponível: " + estoqueRepository.findById(estoque.getId())
+                    .map(Estoque::getQuantidadeDisponivel).orElse(0), HttpStatus.BAD_REQUEST);
+        }
 
         movimentacaoRepository.save(movimentacao);
+        previsao.somarRetirada(movimentacao);
 
         String dataPrevistaStr = movimentacao.getDataPrevistaDevolucao() != null ? 
                                  movimentacao.getDataPrevistaDevolucao().toString() : 
                                  "Indeterminado";
 
         auditoriaService.registrarLog("RETIRADA_" + tipo.toUpperCase(), itemId, 
-            String.format("Retirada de %d unidades do item [%s | id=%d]. Solicitante: %s. Prazo: %s", 
-                          quantidadeRetirada, item.getNome(), item.getId(), funcionario, dataPrevistaStr));
+            String.format("Retirada de %d unidades do item [%s | id=%d] no local %s. Solicitante: %s. Prazo: %s", 
+                          quantidadeRetirada, item.getNome(), item.getId(), estoque.getLocal().getNome(), funcionario, dataPrevistaStr));
+        eventoAlteracaoService.publicar(EventoAlteracaoService.MOVIMENTACAO, movimentacao.getId(), "CRIACAO");
+        eventoAlteracaoService.publicar(EventoAlteracaoService.ESTOQUE, itemId, "ATUALIZACAO");
+        estoqueService.atualizarConsolidadoAposCommit(itemId);
 
 
         return new ResponseEntity<>(movimentacao, HttpStatus.CREATED);
     }
 
     @PostMapping("/devolver/{itemId}")
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public ResponseEntity<?> registrarDevolucao(@PathVariable Long itemId, @RequestBody Map<String, Integer> requisicao) {
         
         Integer quantidadeDevolvida = requisicao.get("quantidadeDevolvida");
@@ -128,8 +179,11 @@ public class MovimentacaoController {
             return new ResponseEntity<>("A quantidade a ser devolvida é obrigatória e deve ser maior que zero.", HttpStatus.BAD_REQUEST);
         }
 
+        Integer localIdReq = requisicao.get("localId");
+        Long localId = localIdReq != null ? localIdReq.longValue() : null;
+
         Optional<Item> itemOpt = itemRepository.findById(itemId);
-        Optional<Estoque> estoqueOpt = estoqueRepository.findByItem_Id(itemId);
+        Optional<Estoque> estoqueOpt = estoqueService.buscarParticao(itemId, localId);
         
         if (itemOpt.isEmpty() || estoqueOpt.isEmpty()) {
             return new ResponseEntity<>("Item ou Estoque não encontrado.", HttpStatus.NOT_FOUND);
@@ -141,11 +195,16 @@ public class MovimentacaoController {
         if (quantidadeDevolvida > unidadesFora) {
              return new ResponseEntity<>("Erro: A quantidade devolvida excede as unidades atualmente fora de estoque (" + unidadesFora + ").", HttpStatus.BAD_REQUEST);
         }
-        
-        estoque.setQuantidadeDisponivel(estoque.getQuantidadeDisponivel() + quantidadeDevolvida);
-        estoqueRepository.save(estoque);
 
-        List<Movimentacao> movimentacoesAtivas = movimentacaoRepository.findByItem_IdAndDataDevolucaoIsNullOrderByDataRetiradaAsc(itemId);
+        // Travada antes da partição, na mesma ordem da retirada.
+        ReservaService.AlteracaoPrevisao previsao = reservaService.travarPrevisao(itemId, false);
+
+        if (estoqueRepository.devolver(estoque.getId(), quantidadeDevolvida, LocalDateTime.now()) == 0) {
+             return new ResponseEntity<>("Erro: A quantidade devolvida excede as unidades atualmente fora de estoque.", HttpStatus.BAD_REQUEST);
+        }
+
+        List<Movimentacao> movimentacoesAtivas = movimentacaoRepository
+            .findByItem_IdAndLocal_IdAndDataDevolucaoIsNullOrderByDataRetiradaAsc(itemId, estoque.getLocal().getId());
         int restanteParaFechar = quantidadeDevolvida;
         
         LocalDateTime agora = LocalDateTime.now();
@@ -160,6 +219,7 @@ public class MovimentacaoController {
                 mov.setDataDevolucao(agora);
                 mov.setStatusPrazo(determinarStatusFinal(mov)); 
                 movimentacaoRepository.save(mov);
+                previsao.descontarDevolucao(mov, quantidadeAtiva);
                 restanteParaFechar -= quantidadeAtiva;
                 quantidadeEfetivamenteFechada += quantidadeAtiva;
                 
@@ -167,17 +227,63 @@ public class MovimentacaoController {
                 int quantidadeRemanescente = quantidadeAtiva - restanteParaFechar;
                 mov.setQuantidade(quantidadeRemanescente);
                 movimentacaoRepository.save(mov);
+                previsao.descontarDevolucao(mov, restanteParaFechar);
                 quantidadeEfetivamenteFechada += restanteParaFechar; 
                 restanteParaFechar = 0; 
             }
         }
         
         auditoriaService.registrarLog("DEVOLUCAO_ITEM", itemId, 
-            String.format("Devolução de %d unidades do item id=%d. Total fechado no histórico: %d.", quantidadeDevolvida, itemId, quantidadeEfetivamenteFechada));
+            String.format("Devolução de %d unidades do item id=%d no local %s. Total fechado no histórico: %d.",
+                          quantidadeDevolvida, itemId, estoque.getLocal().getNome(), quantidadeEfetivamenteFechada));
+        eventoAlteracaoService.publicar(EventoAlteracaoService.ESTOQUE, itemId, "ATUALIZACAO");
+        estoqueService.atualizarConsolidadoAposCommit(itemId);
         
         return new ResponseEntity<>("Devolução registrada com sucesso. Estoque atualizado.", HttpStatus.OK);
     }
 
+    @PostMapping("/transferir/{itemId}")
+    public ResponseEntity<?> registrarTransferencia(@PathVariable Long itemId, @RequestBody Map<String, Integer> requisicao) {
+
+        Integer quantidade = requisicao.get("quantidade");
+        Integer origemId = requisicao.get("origemId");
+        Integer destinoId = requisicao.get("destinoId");
+
+        if (quantidade == null || quantidade <= 0) {
+            return new ResponseEntity<>("A quantidade a ser transferida é obrigatória e deve ser > 0.", HttpStatus.BAD_REQUEST);
+        }
+        if (origemId == null || destinoId == null || origemId.equals(destinoId)) {
+            return new ResponseEntity<>("Informe locais de origem e destino diferentes.", HttpStatus.BAD_REQUEST);
+        }
+
+        Optional<Item> itemOpt = itemRepository.findById(itemId);
+        Optional<Local> origemOpt = estoqueService.resolverLocal(origemId.longValue());
+        Optional<Local> destinoOpt = estoqueService.resolverLocal(destinoId.longValue());
+        if (itemOpt.isEmpty() || origemOpt.isEmpty() || destinoOpt.isEmpty()) {
+            return new ResponseEntity<>("Item ou local não encontrado.", HttpStatus.NOT_FOUND);
+        }
+
+        try {
+            estoqueService.transferir(itemOpt.get(), origemOpt.get(), destinoOpt.get(), quantidade);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+
+        auditoriaService.registrarLog("TRANSFERENCIA_ESTOQUE", itemId,
+            String.format("Transferência de %d unidades do item id=%d: %s -> %s.",
+                          quantidade, itemId, origemOpt.get().getNome(), destinoOpt.get().getNome()));
+        eventoAlteracaoService.publicar(EventoAlteracaoService.ESTOQUE, itemId, "ATUALIZACAO");
+
+        return ResponseEntity.ok(estoqueRepository.findByItem_IdOrderByLocal_IdAsc(itemId));
+    }
+
+    // A reserva atendida já foi gravada; uma retirada recusada depois disso não pode consumi-la.
+    private void desfazerReservaAtendida(Long reservaId) {
+        if (reservaId != null) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+    }
+
     private String determinarStatusFinal(Movimentacao mov) {
         if ("RETIRADA".equalsIgnoreCase(mov.getTipo()) && mov.getDataDevolucao() != null) {
             LocalDate dataLimite = mov.getDataPrevistaDevolucao();
@@ -190,12 +296,14 @@ public class MovimentacaoController {
     }
 
     @GetMapping("/ativas")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Movimentacao>> getAllMovimentacoesAtivas() {
         List<Movimentacao> movimentacoes = movimentacaoRepository.findByDataDevolucaoIsNullOrderByDataRetiradaAsc();
         return ResponseEntity.ok(movimentacoes);
     }
 
     @GetMapping("/movimentacoes")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Movimentacao>> getMovimentacoesAllFallback() {
         List<Movimentacao> todos = movimentacaoRepository.findAll();
         return ResponseEntity.ok(todos);
@@ -214,8 +322,19 @@ public class MovimentacaoController {
     }
     
     @GetMapping("/estoque/{itemId}")
-    public ResponseEntity<Estoque> getEstoquePorItem(@PathVariable Long itemId) {
-        Optional<Estoque> estoqueOpt = estoqueRepository.findByItem_Id(itemId);
+    public ResponseEntity<EstoqueConsolidado> getEstoquePorItem(@PathVariable Long itemId) {
+        Optional<EstoqueConsolidado> estoqueOpt = estoqueService.consultarConsolidado(itemId);
+        return estoqueOpt.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/estoque/{itemId}/locais")
+    public ResponseEntity<List<Estoque>> getEstoquePorLocal(@PathVariable Long itemId) {
+        return ResponseEntity.ok(estoqueRepository.findByItem_IdOrderByLocal_IdAsc(itemId));
+    }
+
+    @GetMapping("/estoque/{itemId}/locais/{localId}")
+    public ResponseEntity<Estoque> getEstoqueNoLocal(@PathVariable Long itemId, @PathVariable Long localId) {
+        Optional<Estoque> estoqueOpt = estoqueRepository.findByItem_IdAndLocal_Id(itemId, localId);
         return estoqueOpt.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 }
@@ -0,0 +1,22 @@
+package com.portaria.controle_itens.controller;
+
+import com.portaria.controle_itens.model.DivergenciaEstoque;
+import com.portaria.controle_itens.service.ReconciliacaoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reconciliacao")
+@CrossOrigin(origins = "*")
+public class ReconciliacaoController {
+
+    @Autowired
+    private ReconciliacaoService reconciliacaoService;
+
+    @GetMapping("/divergencias")
+    public List<DivergenciaEstoque> listarDivergencias(@RequestParam(defaultValue = "true") boolean confirmadas) {
+        return reconciliacaoService.listarDivergencias(confirmadas);
+    }
+}
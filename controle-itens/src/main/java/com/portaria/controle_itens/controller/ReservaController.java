@@ -0,0 +1,131 @@
+package com.portaria.controle_itens.controller;
+
+import com.portaria.controle_itens.model.Reserva;
+import com.portaria.controle_itens.service.AuditoriaService;
+import com.portaria.controle_itens.service.ReservaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/reservas")
+@CrossOrigin(origins = "*")
+public class ReservaController {
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private AuditoriaService auditoriaService;
+
+    @PostMapping
+    public ResponseEntity<?> criarReserva(@RequestBody Map<String, Object> requisicao) {
+        Long itemId = null;
+        Object itemObj = requisicao.get("itemId");
+        if (itemObj instanceof Number) itemId = ((Number) itemObj).longValue();
+
+        Integer quantidade = null;
+        Object qObj = requisicao.get("quantidade");
+        if (qObj instanceof Number) quantidade = ((Number) qObj).intValue();
+
+        String solicitante = (String) requisicao.get("solicitante");
+
+        if (itemId == null || quantidade == null || quantidade <= 0) {
+            return new ResponseEntity<>("Item e quantidade (> 0) são obrigatórios.", HttpStatus.BAD_REQUEST);
+        }
+        if (solicitante == null || solicitante.isBlank()) {
+            return new ResponseEntity<>("Nome do solicitante é obrigatório.", HttpStatus.BAD_REQUEST);
+        }
+
+        LocalDate inicio;
+        LocalDate fim;
+        try {
+            inicio = LocalDate.parse((String) requisicao.get("dataInicio"));
+            fim = LocalDate.parse((String) requisicao.get("dataFim"));
+        } catch (DateTimeParseException | NullPointerException e) {
+            return new ResponseEntity<>("Datas de início e fim são obrigatórias no formato AAAA-MM-DD.", HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            Reserva reserva = reservaService.criarReserva(itemId, quantidade, inicio, fim, solicitante);
+            auditoriaService.registrarLog("RESERVA_CRIADA", itemId,
+                String.format("Reserva de %d unidades do item id=%d de %s a %s. Solicitante: %s",
+                              quantidade, itemId, inicio, fim, solicitante));
+            return new ResponseEntity<>(reserva, HttpStatus.CREATED);
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancelarReserva(@PathVariable Long id) {
+        Optional<Reserva> reservaOpt = reservaService.cancelarReserva(id);
+        if (reservaOpt.isEmpty()) {
+            return new ResponseEntity<>("Reserva ativa não encontrada.", HttpStatus.NOT_FOUND);
+        }
+        Reserva reserva = reservaOpt.get();
+        auditoriaService.registrarLog("RESERVA_CANCELADA", reserva.getItem().getId(),
+            String.format("Reserva id=%d cancelada (%d unidades de %s a %s).",
+                          reserva.getId(), reserva.getQuantidade(), reserva.getDataInicio(), reserva.getDataFim()));
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/item/{itemId}")
+    public List<Reserva> listarAtivas(@PathVariable Long itemId) {
+        return reservaService.listarAtivas(itemId);
+    }
+
+    @GetMapping("/disponibilidade/{itemId}")
+    public ResponseEntity<?> consultarDisponibilidade(
+            @PathVariable Long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestParam(required = false) Integer quantidade) {
+        try {
+            int disponivel = Math.max(0, reservaService.consultarDisponivel(itemId, inicio, fim));
+            Map<String, Object> resposta = new LinkedHashMap<>();
+            resposta.put("itemId", itemId);
+            resposta.put("inicio", inicio);
+            resposta.put("fim", fim);
+            resposta.put("disponivel", disponivel);
+            if (quantidade != null) {
+                resposta.put("atende", disponivel >= quantidade);
+            }
+            return ResponseEntity.ok(resposta);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/janela/{itemId}")
+    public ResponseEntity<?> buscarPrimeiraJanela(
+            @PathVariable Long itemId,
+            @RequestParam int quantidade,
+            @RequestParam int dias,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate aPartirDe) {
+        Optional<LocalDate> inicio = reservaService.buscarPrimeiraJanela(itemId, quantidade, dias,
+            aPartirDe != null ? aPartirDe : LocalDate.now());
+        if (inicio.isEmpty()) {
+            return new ResponseEntity<>("Nenhuma janela livre dentro do horizonte de reservas.", HttpStatus.NOT_FOUND);
+        }
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("itemId", itemId);
+        resposta.put("dataInicio", inicio.get());
+        resposta.put("dataFim", inicio.get().plusDays(dias - 1L));
+        return ResponseEntity.ok(resposta);
+    }
+}
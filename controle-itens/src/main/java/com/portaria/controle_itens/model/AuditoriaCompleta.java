@@ -0,0 +1,8 @@
+package com.portaria.controle_itens.model;
+
+import java.time.LocalDateTime;
+
+// Formato da listagem completa (/api/auditoria), com os detalhes vindos de auditoria_detalhe.
+public record AuditoriaCompleta(Long id, String acao, Long itemIdAfetado, String usuarioResponsavel,
+                                LocalDateTime dataRegistro, String detalhes) {
+}
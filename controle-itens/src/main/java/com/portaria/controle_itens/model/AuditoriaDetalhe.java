@@ -0,0 +1,27 @@
+package com.portaria.controle_itens.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Texto de um registro de auditoria, lido só quando alguém abre o registro.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "auditoria_detalhe")
+public class AuditoriaDetalhe {
+
+    @Id
+    @Column(name = "log_id")
+    private Long logId;
+
+    @Lob
+    private String detalhes;
+
+}
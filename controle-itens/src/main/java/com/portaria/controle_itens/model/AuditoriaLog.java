@@ -4,18 +4,26 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
+// Linha estreita da linha do tempo; o texto livre fica em AuditoriaDetalhe.
+// Cada índice segue com (data_registro, id), a mesma ordem da paginação por cursor, e depois as demais
+// colunas da projeção AuditoriaResumo, para a linha do tempo ser lida só do índice, sem voltar à tabela.
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "auditoria_log")
+@Table(name = "auditoria_log", indexes = {
+    @Index(name = "idx_auditoria_item_data_cobre", columnList = "item_id_afetado, data_registro, id, acao, usuario_responsavel"),
+    @Index(name = "idx_auditoria_acao_data_cobre", columnList = "acao, data_registro, id, item_id_afetado, usuario_responsavel"),
+    @Index(name = "idx_auditoria_usuario_data_cobre", columnList = "usuario_responsavel, data_registro, id, acao, item_id_afetado"),
+    @Index(name = "idx_auditoria_data_cobre", columnList = "data_registro, id, acao, item_id_afetado, usuario_responsavel")
+})
 public class AuditoriaLog {
 
     @Id
@@ -30,7 +38,4 @@ public class AuditoriaLog {
 
     private LocalDateTime dataRegistro;
 
-    @Lob 
-    private String detalhes; 
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package com.portaria.controle_itens.model;
+
+import java.time.LocalDateTime;
+
+// Registro de auditoria sem os detalhes, como lido pelas consultas de linha do tempo.
+public record AuditoriaResumo(Long id, String acao, Long itemIdAfetado, String usuarioResponsavel, LocalDateTime dataRegistro) {
+}
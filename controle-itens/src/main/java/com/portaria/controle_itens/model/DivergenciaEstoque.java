@@ -0,0 +1,45 @@
+package com.portaria.controle_itens.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Partição de estoque cujo disponível não bate com total - soma das movimentações em aberto.
+// Só conta como confirmada quando a mesma diferença aparece em verificações seguidas.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "divergencia_estoque")
+public class DivergenciaEstoque {
+
+    @Id
+    @Column(name = "estoque_id")
+    private Long estoqueId;
+
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "local_id")
+    private Long localId;
+
+    private int quantidadeTotal;
+
+    private int quantidadeDisponivel;
+
+    private int quantidadeEmAberto;
+
+    private int quantidadeEsperada;
+
+    private int ocorrencias;
+
+    @Column(name = "primeira_deteccao")
+    private LocalDateTime primeiraDeteccao;
+
+    @Column(name = "ultima_deteccao")
+    private LocalDateTime ultimaDeteccao;
+
+}
@@ -4,26 +4,55 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.LocalDateTime;
+
+// Uma linha por (item, local). O total do item é servido por EstoqueConsolidado.
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "estoque")
+@Table(name = "estoque_local",
+    uniqueConstraints = @UniqueConstraint(name = "uk_estoque_item_local", columnNames = {"item_id", "local_id"}))
 public class Estoque {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
-    @JoinColumn(name = "item_id", unique = true, nullable = false)
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "item_id", nullable = false)
     private Item item;
 
+    @ManyToOne
+    @JoinColumn(name = "local_id")
+    private Local local;
+
     @Column(nullable = false)
     private int quantidadeTotal;
 
     @Column(nullable = false)
     private int quantidadeDisponivel;
-    
-}
\ No newline at end of file
+
+    @Column(name = "atualizado_em")
+    private LocalDateTime atualizadoEm;
+
+    // Incrementada pelo banco a cada alteração de saldo; a consolidação compara a soma das versões
+    // das partições com a que gravou, sem depender de relógio nem da ordem dos commits.
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long versao;
+
+    @PrePersist
+    public void marcarCriacao() {
+        this.atualizadoEm = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    public void marcarAtualizacao() {
+        this.atualizadoEm = LocalDateTime.now();
+        this.versao++;
+    }
+
+}
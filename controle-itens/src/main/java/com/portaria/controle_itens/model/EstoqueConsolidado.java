@@ -0,0 +1,38 @@
+package com.portaria.controle_itens.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+// Soma das partições de Estoque de um item, mantida pela consolidação periódica.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "estoque_consolidado")
+public class EstoqueConsolidado {
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(nullable = false)
+    private int quantidadeTotal;
+
+    @Column(nullable = false)
+    private int quantidadeDisponivel;
+
+    // Soma de Estoque.versao das partições do item quando esta linha foi calculada
+    // (-1 nas linhas anteriores à coluna, para a primeira consolidação refazer todas).
+    @Column(nullable = false)
+    @ColumnDefault("-1")
+    private long versaoParticoes;
+
+    @Column(name = "atualizado_em")
+    private LocalDateTime atualizadoEm;
+
+}
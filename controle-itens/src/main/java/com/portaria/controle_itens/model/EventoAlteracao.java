@@ -0,0 +1,43 @@
+package com.portaria.controle_itens.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "evento_alteracao", indexes = {
+    @Index(name = "idx_evento_alteracao_data", columnList = "data_registro")
+})
+public class EventoAlteracao {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String entidade;
+
+    @Column(name = "entidade_id")
+    private Long entidadeId;
+
+    @Column(nullable = false, length = 30)
+    private String tipo;
+
+    @Column(length = 255)
+    private String origem;
+
+    @Column(name = "data_registro", nullable = false)
+    private LocalDateTime dataRegistro;
+
+}
@@ -1,5 +1,6 @@
 package com.portaria.controle_itens.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.util.Objects;
 
@@ -20,6 +21,12 @@ public class Item {
     @Column(length = 1000)
     private String descricao;
 
+    // Reservas ativas do item, mantidas por ReservaService sob a trava do item. Nulo nas linhas anteriores
+    // à coluna até a migração contar; enquanto nulo, o item é tratado como tendo reservas.
+    @JsonIgnore
+    @Column(name = "reservas_ativas", updatable = false)
+    private Integer reservasAtivas = 0;
+
     public Item() {}
 
     public Item(String nome, String patrimonio, String descricao) {
@@ -44,6 +51,10 @@ public class Item {
         return descricao;
     }
 
+    public Integer getReservasAtivas() {
+        return reservasAtivas;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -6,7 +6,10 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "movimentacao")
+// O índice de prazo atende a varredura de atrasos e o preenchimento de avisos por canal.
+@Table(name = "movimentacao", indexes = {
+    @Index(name = "idx_movimentacao_prazo", columnList = "status_prazo, data_devolucao")
+})
 public class Movimentacao {
 
     @Id
@@ -17,6 +20,10 @@ public class Movimentacao {
     @JoinColumn(name = "item_id")
     private Item item;
 
+    @ManyToOne
+    @JoinColumn(name = "local_id")
+    private Local local;
+
     @Column(name = "item_nome", length = 512)
     private String itemNome;
 
@@ -62,6 +69,10 @@ public class Movimentacao {
         return item;
     }
 
+    public Local getLocal() {
+        return local;
+    }
+
     public String getItemNome() {
         return itemNome;
     }
@@ -106,6 +117,10 @@ public class Movimentacao {
         this.item = item;
     }
 
+    public void setLocal(Local local) {
+        this.local = local;
+    }
+
     public void setItemNome(String itemNome) {
         this.itemNome = itemNome;
     }
@@ -0,0 +1,75 @@
+package com.portaria.controle_itens.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Uma linha por (movimentação, canal): a restrição única impede avisar duas vezes o mesmo atraso
+// no mesmo canal, e cada canal tem suas próprias tentativas. Antes do envio a linha passa a EM_ENVIO
+// com dono e prazo, para que outra instância não a envie de novo enquanto o envio está em curso.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "notificacao_outbox",
+    uniqueConstraints = @UniqueConstraint(name = "uk_notificacao_mov_canal", columnNames = {"movimentacao_id", "canal"}),
+    indexes = @Index(name = "idx_notificacao_status_proxima", columnList = "status, proxima_tentativa"))
+public class NotificacaoOutbox {
+
+    public static final String PENDENTE = "PENDENTE";
+    public static final String EM_ENVIO = "EM_ENVIO";
+    public static final String ENVIADA = "ENVIADA";
+    public static final String FALHA = "FALHA";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "movimentacao_id", nullable = false)
+    private Long movimentacaoId;
+
+    @Column(nullable = false, length = 30)
+    private String canal;
+
+    @Column(length = 255)
+    private String funcionario;
+
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "item_nome", length = 512)
+    private String itemNome;
+
+    private Integer quantidade;
+
+    @Column(name = "data_prevista_devolucao")
+    private LocalDate dataPrevistaDevolucao;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    private int tentativas;
+
+    @Column(name = "proxima_tentativa")
+    private LocalDateTime proximaTentativa;
+
+    @Column(name = "ultimo_erro", length = 1000)
+    private String ultimoErro;
+
+    @Column(name = "data_registro")
+    private LocalDateTime dataRegistro;
+
+    @Column(name = "data_envio")
+    private LocalDateTime dataEnvio;
+
+    @Column(length = 255)
+    private String dono;
+
+    @Column(name = "reservada_ate")
+    private LocalDateTime reservadaAte;
+
+}
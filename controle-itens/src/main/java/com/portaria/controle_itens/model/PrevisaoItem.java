@@ -0,0 +1,25 @@
+package com.portaria.controle_itens.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Versão da previsão de um item com reservas (retiradas em aberto e reservas ativas). Quem altera essa
+// previsão trava esta linha e incrementa a versão; sem chave estrangeira para item, a linha pode ser
+// criada numa transação à parte enquanto a do item está travada.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "previsao_item")
+public class PrevisaoItem {
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(nullable = false)
+    private long versao;
+
+}
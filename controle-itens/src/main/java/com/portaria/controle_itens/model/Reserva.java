@@ -0,0 +1,52 @@
+package com.portaria.controle_itens.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "reserva", indexes = {
+    @Index(name = "idx_reserva_item_status", columnList = "item_id, status"),
+    @Index(name = "idx_reserva_status_id", columnList = "status, id")
+})
+public class Reserva {
+
+    public static final String ATIVA = "ATIVA";
+    public static final String CANCELADA = "CANCELADA";
+    public static final String ATENDIDA = "ATENDIDA";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "item_id", nullable = false)
+    private Item item;
+
+    @Column(nullable = false)
+    private int quantidade;
+
+    @Column(name = "data_inicio", nullable = false)
+    private LocalDate dataInicio;
+
+    // Inclusiva: a reserva ocupa o item até o fim deste dia.
+    @Column(name = "data_fim", nullable = false)
+    private LocalDate dataFim;
+
+    @Column(length = 255)
+    private String solicitante;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "data_registro")
+    private LocalDateTime dataRegistro;
+
+}
@@ -0,0 +1,5 @@
+package com.portaria.controle_itens.model;
+
+// Saldos de uma partição de estoque sem as entidades Item e Local, como lidos pela reconciliação.
+public record SaldoParticao(Long id, Long itemId, Long localId, int quantidadeTotal, int quantidadeDisponivel) {
+}
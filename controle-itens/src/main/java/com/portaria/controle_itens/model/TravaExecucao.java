@@ -0,0 +1,29 @@
+package com.portaria.controle_itens.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "trava_execucao")
+public class TravaExecucao {
+
+    @Id
+    @Column(length = 100)
+    private String nome;
+
+    @Column(nullable = false, length = 255)
+    private String dono;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+}
@@ -0,0 +1,9 @@
+package com.portaria.controle_itens.repository;
+
+import com.portaria.controle_itens.model.AuditoriaDetalhe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AuditoriaDetalheRepository extends JpaRepository<AuditoriaDetalhe, Long> {
+}
@@ -1,12 +1,60 @@
 package com.portaria.controle_itens.repository;
 
+import com.portaria.controle_itens.model.AuditoriaCompleta;
 import com.portaria.controle_itens.model.AuditoriaLog;
+import com.portaria.controle_itens.model.AuditoriaResumo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface AuditoriaLogRepository extends JpaRepository<AuditoriaLog, Long> {
-    List<AuditoriaLog> findAllByOrderByDataRegistroDesc();
+
+    @Query("SELECT new com.portaria.controle_itens.model.AuditoriaCompleta(a.id, a.acao, a.itemIdAfetado, a.usuarioResponsavel, a.dataRegistro, d.detalhes) " +
+           "FROM AuditoriaLog a LEFT JOIN AuditoriaDetalhe d ON d.logId = a.id ORDER BY a.dataRegistro DESC, a.id DESC")
+    List<AuditoriaCompleta> listarCompleta();
+
+    // Linha do tempo em ordem decrescente de (dataRegistro, id), no intervalo [de, ate). O cursor é o último
+    // registro da página anterior e fica de fora; registros com a mesma data são desempatados pelo id.
+    // Cada consulta usa a igualdade do filtro + o intervalo de datas sobre o índice correspondente.
+
+    @Query("SELECT new com.portaria.controle_itens.model.AuditoriaResumo(a.id, a.acao, a.itemIdAfetado, a.usuarioResponsavel, a.dataRegistro) " +
+           "FROM AuditoriaLog a WHERE a.dataRegistro >= :de AND a.dataRegistro < :ate " +
+           "AND (a.dataRegistro < :cursorData OR (a.dataRegistro = :cursorData AND a.id < :cursorId)) " +
+           "ORDER BY a.dataRegistro DESC, a.id DESC")
+    List<AuditoriaResumo> linhaDoTempo(@Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate,
+                                       @Param("cursorData") LocalDateTime cursorData, @Param("cursorId") Long cursorId,
+                                       Pageable pageable);
+
+    @Query("SELECT new com.portaria.controle_itens.model.AuditoriaResumo(a.id, a.acao, a.itemIdAfetado, a.usuarioResponsavel, a.dataRegistro) " +
+           "FROM AuditoriaLog a WHERE a.itemIdAfetado = :itemId AND a.dataRegistro >= :de AND a.dataRegistro < :ate " +
+           "AND (a.dataRegistro < :cursorData OR (a.dataRegistro = :cursorData AND a.id < :cursorId)) " +
+           "ORDER BY a.dataRegistro DESC, a.id DESC")
+    List<AuditoriaResumo> linhaDoTempoPorItem(@Param("itemId") Long itemId,
+                                              @Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate,
+                                              @Param("cursorData") LocalDateTime cursorData, @Param("cursorId") Long cursorId,
+                                              Pageable pageable);
+
+    @Query("SELECT new com.portaria.controle_itens.model.AuditoriaResumo(a.id, a.acao, a.itemIdAfetado, a.usuarioResponsavel, a.dataRegistro) " +
+           "FROM AuditoriaLog a WHERE a.acao = :acao AND a.dataRegistro >= :de AND a.dataRegistro < :ate " +
+           "AND (a.dataRegistro < :cursorData OR (a.dataRegistro = :cursorData AND a.id < :cursorId)) " +
+           "ORDER BY a.dataRegistro DESC, a.id DESC")
+    List<AuditoriaResumo> linhaDoTempoPorAcao(@Param("acao") String acao,
+                                              @Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate,
+                                              @Param("cursorData") LocalDateTime cursorData, @Param("cursorId") Long cursorId,
+                                              Pageable pageable);
+
+    @Query("SELECT new com.portaria.controle_itens.model.AuditoriaResumo(a.id, a.acao, a.itemIdAfetado, a.usuarioResponsavel, a.dataRegistro) " +
+           "FROM AuditoriaLog a WHERE a.usuarioResponsavel = :usuario AND a.dataRegistro >= :de AND a.dataRegistro < :ate " +
+           "AND (a.dataRegistro < :cursorData OR (a.dataRegistro = :cursorData AND a.id < :cursorId)) " +
+           "ORDER BY a.dataRegistro DESC, a.id DESC")
+    List<AuditoriaResumo> linhaDoTempoPorUsuario(@Param("usuario") String usuario,
+                                                 @Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate,
+                                                 @Param("cursorData") LocalDateTime cursorData, @Param("cursorId") Long cursorId,
+                                                 Pageable pageable);
 }
@@ -0,0 +1,31 @@
+package com.portaria.controle_itens.repository;
+
+import com.portaria.controle_itens.model.DivergenciaEstoque;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DivergenciaEstoqueRepository extends JpaRepository<DivergenciaEstoque, Long> {
+
+    List<DivergenciaEstoque> findByEstoqueIdIn(Collection<Long> estoqueIds);
+
+    List<DivergenciaEstoque> findByOcorrenciasGreaterThanEqualOrderByItemIdAsc(int ocorrencias);
+
+    List<DivergenciaEstoque> findAllByOrderByItemIdAsc();
+
+    long countByOcorrenciasGreaterThanEqual(int ocorrencias);
+
+    @Transactional
+    void deleteByItemId(Long itemId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DivergenciaEstoque d WHERE NOT EXISTS (SELECT 1 FROM Estoque e WHERE e.id = d.estoqueId)")
+    int removerSemParticao();
+}
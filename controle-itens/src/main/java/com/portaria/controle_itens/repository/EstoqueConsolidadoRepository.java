@@ -0,0 +1,18 @@
+package com.portaria.controle_itens.repository;
+
+import com.portaria.controle_itens.model.EstoqueConsolidado;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EstoqueConsolidadoRepository extends JpaRepository<EstoqueConsolidado, Long> {
+
+    // Consolidados que sobraram de itens excluídos (gravados por uma rodada que leu antes da exclusão).
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EstoqueConsolidado c WHERE NOT EXISTS (SELECT 1 FROM Estoque e WHERE e.item.id = c.itemId)")
+    int removerSemParticoes();
+}
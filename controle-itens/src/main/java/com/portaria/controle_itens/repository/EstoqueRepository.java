@@ -1,12 +1,93 @@
 package com.portaria.controle_itens.repository;
 
 import com.portaria.controle_itens.model.Estoque;
+import com.portaria.controle_itens.model.SaldoParticao;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface EstoqueRepository extends JpaRepository<Estoque, Long> {
-    Optional<Estoque> findByItem_Id(Long itemId);
+
+    List<Estoque> findByItem_IdOrderByLocal_IdAsc(Long itemId);
+
+    Optional<Estoque> findByItem_IdAndLocal_Id(Long itemId, Long localId);
+
+    // Projeção sem carregar Item e Local: a reconciliação só precisa dos ids e dos saldos.
+    @Query("SELECT new com.portaria.controle_itens.model.SaldoParticao(e.id, e.item.id, e.local.id, e.quantidadeTotal, e.quantidadeDisponivel) " +
+           "FROM Estoque e WHERE e.id > :id ORDER BY e.id ASC")
+    List<SaldoParticao> buscarSaldosAPartirDe(@Param("id") Long id, Pageable pageable);
+
+    @Transactional
+    void deleteByItem_Id(Long itemId);
+
+    // As operações abaixo alteram só a linha da partição e validam o saldo no próprio UPDATE,
+    // sem ler-e-gravar, para que retiradas concorrentes no mesmo local não vendam a mais.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Estoque e SET e.quantidadeDisponivel = e.quantidadeDisponivel - :quantidade, e.atualizadoEm = :agora, e.versao = e.versao + 1 " +
+           "WHERE e.id = :id AND e.quantidadeDisponivel >= :quantidade")
+    int retirar(@Param("id") Long id, @Param("quantidade") int quantidade, @Param("agora") LocalDateTime agora);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Estoque e SET e.quantidadeDisponivel = e.quantidadeDisponivel + :quantidade, e.atualizadoEm = :agora, e.versao = e.versao + 1 " +
+           "WHERE e.id = :id AND e.quantidadeTotal - e.quantidadeDisponivel >= :quantidade")
+    int devolver(@Param("id") Long id, @Param("quantidade") int quantidade, @Param("agora") LocalDateTime agora);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Estoque e SET e.quantidadeTotal = e.quantidadeTotal - :quantidade, " +
+           "e.quantidadeDisponivel = e.quantidadeDisponivel - :quantidade, e.atualizadoEm = :agora, e.versao = e.versao + 1 " +
+           "WHERE e.id = :id AND e.quantidadeDisponivel >= :quantidade")
+    int transferirSaida(@Param("id") Long id, @Param("quantidade") int quantidade, @Param("agora") LocalDateTime agora);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Estoque e SET e.quantidadeTotal = e.quantidadeTotal + :quantidade, " +
+           "e.quantidadeDisponivel = e.quantidadeDisponivel + :quantidade, e.atualizadoEm = :agora, e.versao = e.versao + 1 " +
+           "WHERE e.id = :id")
+    int transferirEntrada(@Param("id") Long id, @Param("quantidade") int quantidade, @Param("agora") LocalDateTime agora);
+
+    // Ajuste manual do total: o disponível acompanha a diferença no mesmo UPDATE, sem regravar um valor lido antes.
+    // Recusa (0 linhas) se o novo total ficar abaixo das unidades que estão fora. O disponível vem primeiro
+    // no SET porque o MySQL aplica as atribuições em ordem, já com os valores novos.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Estoque e SET e.quantidadeDisponivel = e.quantidadeDisponivel + (:novoTotal - e.quantidadeTotal), " +
+           "e.quantidadeTotal = :novoTotal, e.atualizadoEm = :agora, e.versao = e.versao + 1 " +
+           "WHERE e.id = :id AND e.quantidadeDisponivel + (:novoTotal - e.quantidadeTotal) >= 0")
+    int ajustarTotal(@Param("id") Long id, @Param("novoTotal") int novoTotal, @Param("agora") LocalDateTime agora);
+
+    // Correção da reconciliação: só grava se o disponível ainda for o observado na verificação.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Estoque e SET e.quantidadeDisponivel = :esperado, e.atualizadoEm = :agora, e.versao = e.versao + 1 " +
+           "WHERE e.id = :id AND e.quantidadeDisponivel = :observado")
+    int corrigirDisponivel(@Param("id") Long id, @Param("esperado") int esperado,
+                           @Param("observado") int observado, @Param("agora") LocalDateTime agora);
+
+    // [itemId, soma total, soma disponível, soma das versões] dos itens cujo consolidado falta ou foi
+    // calculado sobre outras versões das partições. Uma escrita só aparece aqui depois do commit,
+    // então nenhuma fica para trás por ter confirmado tarde.
+    @Query("SELECT e.item.id, SUM(e.quantidadeTotal), SUM(e.quantidadeDisponivel), SUM(e.versao) FROM Estoque e " +
+           "LEFT JOIN EstoqueConsolidado c ON c.itemId = e.item.id " +
+           "GROUP BY e.item.id, c.versaoParticoes " +
+           "HAVING c.versaoParticoes IS NULL OR SUM(e.versao) <> c.versaoParticoes")
+    List<Object[]> somarPorItemDesatualizado();
+
+    @Query("SELECT e.item.id, SUM(e.quantidadeTotal), SUM(e.quantidadeDisponivel) FROM Estoque e GROUP BY e.item.id")
+    List<Object[]> somarTodosPorItem();
+
+    @Query("SELECT e.item.id, SUM(e.quantidadeTotal), SUM(e.quantidadeDisponivel), SUM(e.versao) FROM Estoque e " +
+           "WHERE e.item.id = :itemId GROUP BY e.item.id")
+    List<Object[]> somarPorItem(@Param("itemId") Long itemId);
 }
@@ -0,0 +1,30 @@
+package com.portaria.controle_itens.repository;
+
+import com.portaria.controle_itens.model.EventoAlteracao;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventoAlteracaoRepository extends JpaRepository<EventoAlteracao, Long> {
+
+    List<EventoAlteracao> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<EventoAlteracao> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM EventoAlteracao e")
+    Long findMaxId();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EventoAlteracao e WHERE e.dataRegistro < :limite")
+    int deleteByDataRegistroBefore(@Param("limite") LocalDateTime limite);
+}
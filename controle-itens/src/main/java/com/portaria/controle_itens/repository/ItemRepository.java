@@ -1,10 +1,19 @@
 package com.portaria.controle_itens.repository;
 
 import com.portaria.controle_itens.model.Item;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
-    // métodos custom se necessário
+
+    // Nativo porque a coluna não é gravada pela entidade. Um contador nulo (ainda não contado) continua nulo.
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE item SET reservas_ativas = reservas_ativas + :delta WHERE id = :id", nativeQuery = true)
+    int ajustarReservasAtivas(@Param("id") Long id, @Param("delta") int delta);
 }
@@ -0,0 +1,12 @@
+package com.portaria.controle_itens.repository;
+
+import com.portaria.controle_itens.model.Local;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface LocalRepository extends JpaRepository<Local, Long> {
+    Optional<Local> findByNome(String nome);
+}
@@ -2,9 +2,13 @@ package com.portaria.controle_itens.repository;
 
 import com.portaria.controle_itens.model.Movimentacao;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,10 +21,19 @@ public interface MovimentacaoRepository extends JpaRepository<Movimentacao, Long
 
     List<Movimentacao> findByItem_IdAndDataDevolucaoIsNullOrderByDataRetiradaAsc(Long itemId); 
 
+    List<Movimentacao> findByItem_IdAndLocal_IdAndDataDevolucaoIsNullOrderByDataRetiradaAsc(Long itemId, Long localId);
+
     @Transactional
     void deleteByItem_Id(Long itemId);
 
     List<Movimentacao> findByDataDevolucaoIsNullOrderByDataRetiradaAsc();
 
     List<Movimentacao> findByItem_Id(Long itemId);
+
+    List<Movimentacao> findByDataDevolucaoIsNullAndIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // [itemId, localId, soma das quantidades em aberto] para um lote de itens.
+    @Query("SELECT m.item.id, m.local.id, SUM(m.quantidade) FROM Movimentacao m " +
+           "WHERE m.dataDevolucao IS NULL AND m.item.id IN :itens GROUP BY m.item.id, m.local.id")
+    List<Object[]> somarEmAbertoPorItemELocal(@Param("itens") Collection<Long> itens);
 }
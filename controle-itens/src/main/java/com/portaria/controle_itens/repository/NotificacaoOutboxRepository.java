@@ -0,0 +1,48 @@
+package com.portaria.controle_itens.repository;
+
+import com.portaria.controle_itens.model.NotificacaoOutbox;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificacaoOutboxRepository extends JpaRepository<NotificacaoOutbox, Long> {
+
+    // Pendentes vencidas e envios abandonados (instância que caiu com a reserva ainda aberta).
+    @Query("SELECT n FROM NotificacaoOutbox n WHERE (n.status = 'PENDENTE' AND n.proximaTentativa <= :agora) " +
+           "OR (n.status = 'EM_ENVIO' AND n.reservadaAte < :agora) ORDER BY n.id ASC")
+    List<NotificacaoOutbox> buscarParaEnvio(@Param("agora") LocalDateTime agora, Pageable pageable);
+
+    // Reserva as linhas para este dono; só pega as que ainda estão livres no momento do UPDATE.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE NotificacaoOutbox n SET n.status = 'EM_ENVIO', n.dono = :dono, n.reservadaAte = :reservadaAte " +
+           "WHERE n.id IN :ids AND (n.status = 'PENDENTE' OR (n.status = 'EM_ENVIO' AND n.reservadaAte < :agora))")
+    int reservar(@Param("ids") Collection<Long> ids, @Param("dono") String dono,
+                 @Param("reservadaAte") LocalDateTime reservadaAte, @Param("agora") LocalDateTime agora);
+
+    // Avisos que faltam no canal para movimentações atrasadas e ainda fora: a detecção só grava linhas
+    // dos canais que a instância dela tem ligados; a restrição única barra uma cópia criada em paralelo.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO notificacao_outbox (movimentacao_id, canal, funcionario, item_id, item_nome, quantidade, " +
+                   "data_prevista_devolucao, status, tentativas, proxima_tentativa, data_registro) " +
+                   "SELECT m.id, :canal, m.funcionario_solicitante, m.item_id, m.item_nome, m.quantidade, " +
+                   "m.data_prevista_devolucao, 'PENDENTE', 0, :agora, :agora FROM movimentacao m " +
+                   "WHERE m.status_prazo = 'ATRASADO' AND m.data_devolucao IS NULL AND NOT EXISTS " +
+                   "(SELECT 1 FROM notificacao_outbox n WHERE n.movimentacao_id = m.id AND n.canal = :canal)",
+           nativeQuery = true)
+    int preencherCanal(@Param("canal") String canal, @Param("agora") LocalDateTime agora);
+
+    List<NotificacaoOutbox> findByIdInAndStatusAndDonoOrderByIdAsc(Collection<Long> ids, String status, String dono);
+
+    long countByStatus(String status);
+}
@@ -0,0 +1,27 @@
+package com.portaria.controle_itens.repository;
+
+import com.portaria.controle_itens.model.PrevisaoItem;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PrevisaoItemRepository extends JpaRepository<PrevisaoItem, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PrevisaoItem p WHERE p.itemId = :itemId")
+    Optional<PrevisaoItem> findComTravaByItemId(@Param("itemId") Long itemId);
+
+    // INSERT puro: save() de id atribuído faria merge e zeraria a versão de uma linha criada em paralelo.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO previsao_item (item_id, versao) VALUES (:itemId, 0)", nativeQuery = true)
+    int inserir(@Param("itemId") Long itemId);
+}
@@ -0,0 +1,20 @@
+package com.portaria.controle_itens.repository;
+
+import com.portaria.controle_itens.model.Reserva;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReservaRepository extends JpaRepository<Reserva, Long> {
+
+    List<Reserva> findByItem_IdAndStatusOrderByDataInicioAsc(Long itemId, String status);
+
+    List<Reserva> findByStatusAndIdGreaterThanOrderByIdAsc(String status, Long id, Pageable pageable);
+
+    @Transactional
+    void deleteByItem_Id(Long itemId);
+}
@@ -0,0 +1,33 @@
+package com.portaria.controle_itens.repository;
+
+import com.portaria.controle_itens.model.TravaExecucao;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface TravaExecucaoRepository extends JpaRepository<TravaExecucao, String> {
+
+    // Renova a trava do próprio dono ou assume uma trava expirada de outra instância.
+    @Transactional
+    @Modifying
+    @Query("UPDATE TravaExecucao t SET t.dono = :dono, t.expiraEm = :expiraEm " +
+           "WHERE t.nome = :nome AND (t.dono = :dono OR t.expiraEm < :agora)")
+    int renovarOuAssumir(@Param("nome") String nome, @Param("dono") String dono,
+                         @Param("expiraEm") LocalDateTime expiraEm, @Param("agora") LocalDateTime agora);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO trava_execucao (nome, dono, expira_em) VALUES (:nome, :dono, :expiraEm)", nativeQuery = true)
+    int inserir(@Param("nome") String nome, @Param("dono") String dono, @Param("expiraEm") LocalDateTime expiraEm);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE TravaExecucao t SET t.expiraEm = :agora WHERE t.nome = :nome AND t.dono = :dono")
+    int liberar(@Param("nome") String nome, @Param("dono") String dono, @Param("agora") LocalDateTime agora);
+}
@@ -5,6 +5,7 @@ import com.portaria.controle_itens.repository.MovimentacaoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -16,8 +17,25 @@ public class AlarmeService {
     @Autowired
     private MovimentacaoRepository movimentacaoRepository;
 
+    @Autowired
+    private TravaExecucaoService travaExecucaoService;
+
+    @Autowired
+    private EventoAlteracaoService eventoAlteracaoService;
+
+    @Autowired
+    private NotificacaoService notificacaoService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Scheduled(cron = "*/10 * * * * *") 
     public void verificarAtrasos() {
+        // Com várias instâncias, só a dona da trava faz a varredura.
+        if (!travaExecucaoService.tentarAdquirir("verificarAtrasos")) {
+            return;
+        }
+
         System.out.println("--- Executando Verificação de Atrasos: " + LocalDateTime.now() + " ---");
         
         List<Movimentacao> movimentacoesPendentes = movimentacaoRepository
@@ -31,8 +49,13 @@ public class AlarmeService {
 
             if (dataLimite != null && hoje.isAfter(dataLimite)) {
                 
-                mov.setStatusPrazo("ATRASADO");
-                movimentacaoRepository.save(mov);
+                // Status e aviso na mesma transação: o envio em si fica com o NotificacaoService.
+                transactionTemplate.executeWithoutResult(status -> {
+                    mov.setStatusPrazo("ATRASADO");
+                    movimentacaoRepository.save(mov);
+                    notificacaoService.registrarAtraso(mov);
+                    eventoAlteracaoService.publicar(EventoAlteracaoService.MOVIMENTACAO, mov.getId(), "ATUALIZACAO");
+                });
                 itensAtrasados++;
                 
                 System.out.println("🚨 ALARME: Item ATRASADO! ID: " + mov.getItem().getId() 
@@ -0,0 +1,10 @@
+package com.portaria.controle_itens.service;
+
+import java.time.LocalDateTime;
+
+public record AlteracaoEvent(Long id, String entidade, Long entidadeId, String tipo, String origem, LocalDateTime dataRegistro) {
+
+    public boolean isDaEntidade(String nome) {
+        return entidade != null && entidade.equalsIgnoreCase(nome);
+    }
+}
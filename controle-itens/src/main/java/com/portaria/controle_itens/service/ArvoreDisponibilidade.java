@@ -0,0 +1,107 @@
+package com.portaria.controle_itens.service;
+
+// Árvore de segmentos sobre dias (0 = data base do índice) com soma em intervalo e máximo em intervalo.
+// Cada posição guarda quantas unidades do item estão comprometidas naquele dia.
+class ArvoreDisponibilidade {
+
+    private final int tamanho;
+    private final int[] maximo;
+    private final int[] pendente;
+
+    ArvoreDisponibilidade(int tamanho) {
+        this.tamanho = tamanho;
+        this.maximo = new int[4 * tamanho];
+        this.pendente = new int[4 * tamanho];
+    }
+
+    int getTamanho() {
+        return tamanho;
+    }
+
+    void somar(int inicio, int fim, int valor) {
+        if (inicio > fim) {
+            return;
+        }
+        somar(1, 0, tamanho - 1, inicio, fim, valor);
+    }
+
+    int maximo(int inicio, int fim) {
+        if (inicio > fim) {
+            return 0;
+        }
+        return maximo(1, 0, tamanho - 1, inicio, fim);
+    }
+
+    // Primeiro dia em [inicio, fim] com comprometimento acima do limite, ou -1 se não houver.
+    int primeiroAcima(int inicio, int fim, int limite) {
+        if (inicio > fim) {
+            return -1;
+        }
+        return primeiroAcima(1, 0, tamanho - 1, inicio, fim, limite);
+    }
+
+    // Primeiro início >= aPartirDe de uma janela de "dias" posições seguidas, todas com comprometimento
+    // até o limite, ou -1. Cada bloqueio encontrado faz o candidato pular para o dia seguinte a ele.
+    int primeiraJanela(int aPartirDe, int dias, int limite) {
+        int candidato = aPartirDe;
+        while (candidato + dias - 1 < tamanho) {
+            int bloqueio = primeiroAcima(candidato, candidato + dias - 1, limite);
+            if (bloqueio == -1) {
+                return candidato;
+            }
+            candidato = bloqueio + 1;
+        }
+        return -1;
+    }
+
+    private void somar(int no, int esq, int dir, int inicio, int fim, int valor) {
+        if (fim < esq || dir < inicio) {
+            return;
+        }
+        if (inicio <= esq && dir <= fim) {
+            maximo[no] += valor;
+            pendente[no] += valor;
+            return;
+        }
+        descer(no);
+        int meio = (esq + dir) >>> 1;
+        somar(2 * no, esq, meio, inicio, fim, valor);
+        somar(2 * no + 1, meio + 1, dir, inicio, fim, valor);
+        maximo[no] = Math.max(maximo[2 * no], maximo[2 * no + 1]);
+    }
+
+    private int maximo(int no, int esq, int dir, int inicio, int fim) {
+        if (fim < esq || dir < inicio) {
+            return Integer.MIN_VALUE;
+        }
+        if (inicio <= esq && dir <= fim) {
+            return maximo[no];
+        }
+        descer(no);
+        int meio = (esq + dir) >>> 1;
+        return Math.max(maximo(2 * no, esq, meio, inicio, fim), maximo(2 * no + 1, meio + 1, dir, inicio, fim));
+    }
+
+    private int primeiroAcima(int no, int esq, int dir, int inicio, int fim, int limite) {
+        if (fim < esq || dir < inicio || maximo[no] <= limite) {
+            return -1;
+        }
+        if (esq == dir) {
+            return esq;
+        }
+        descer(no);
+        int meio = (esq + dir) >>> 1;
+        int resultado = primeiroAcima(2 * no, esq, meio, inicio, fim, limite);
+        return resultado != -1 ? resultado : primeiroAcima(2 * no + 1, meio + 1, dir, inicio, fim, limite);
+    }
+
+    private void descer(int no) {
+        if (pendente[no] != 0) {
+            for (int filho = 2 * no; filho <= 2 * no + 1; filho++) {
+                maximo[filho] += pendente[no];
+                pendente[filho] += pendente[no];
+            }
+            pendente[no] = 0;
+        }
+    }
+}
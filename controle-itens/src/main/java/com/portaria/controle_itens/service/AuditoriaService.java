@@ -1,26 +1,107 @@
 package com.portaria.controle_itens.service;
 
+import com.portaria.controle_itens.model.AuditoriaDetalhe;
 import com.portaria.controle_itens.model.AuditoriaLog;
+import com.portaria.controle_itens.model.AuditoriaResumo;
+import com.portaria.controle_itens.repository.AuditoriaDetalheRepository;
 import com.portaria.controle_itens.repository.AuditoriaLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 public class AuditoriaService {
 
+    // Limites abertos para quando o intervalo ou o cursor não são informados.
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime FIM = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     @Autowired
     private AuditoriaLogRepository auditoriaLogRepository;
 
+    @Autowired
+    private AuditoriaDetalheRepository auditoriaDetalheRepository;
+
+    @Value("${app.auditoria.pagina-maxima:200}")
+    private int paginaMaxima;
+
+    @Transactional
     public void registrarLog(String acao, Long itemId, String detalhes) {
         AuditoriaLog log = new AuditoriaLog();
         log.setAcao(acao);
         log.setItemIdAfetado(itemId);
         log.setUsuarioResponsavel("Portaria Admin"); 
         log.setDataRegistro(LocalDateTime.now());
-        log.setDetalhes(detalhes);
 
-        auditoriaLogRepository.save(log);
+        AuditoriaLog salvo = auditoriaLogRepository.save(log);
+        if (detalhes != null) {
+            auditoriaDetalheRepository.save(new AuditoriaDetalhe(salvo.getId(), detalhes));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaAuditoria linhaDoTempo(LocalDateTime de, LocalDateTime ate, LocalDateTime antesDe, Long antesId, int tamanho) {
+        return paginar(de, ate, antesDe, antesId, tamanho, auditoriaLogRepository::linhaDoTempo);
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaAuditoria linhaDoTempoPorItem(Long itemId, LocalDateTime de, LocalDateTime ate,
+                                               LocalDateTime antesDe, Long antesId, int tamanho) {
+        return paginar(de, ate, antesDe, antesId, tamanho,
+            (inicio, fim, cursorData, cursorId, pagina) ->
+                auditoriaLogRepository.linhaDoTempoPorItem(itemId, inicio, fim, cursorData, cursorId, pagina));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaAuditoria linhaDoTempoPorAcao(String acao, LocalDateTime de, LocalDateTime ate,
+                                               LocalDateTime antesDe, Long antesId, int tamanho) {
+        return paginar(de, ate, antesDe, antesId, tamanho,
+            (inicio, fim, cursorData, cursorId, pagina) ->
+                auditoriaLogRepository.linhaDoTempoPorAcao(acao, inicio, fim, cursorData, cursorId, pagina));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaAuditoria linhaDoTempoPorUsuario(String usuario, LocalDateTime de, LocalDateTime ate,
+                                                  LocalDateTime antesDe, Long antesId, int tamanho) {
+        return paginar(de, ate, antesDe, antesId, tamanho,
+            (inicio, fim, cursorData, cursorId, pagina) ->
+                auditoriaLogRepository.linhaDoTempoPorUsuario(usuario, inicio, fim, cursorData, cursorId, pagina));
+    }
+
+    // Uma das consultas por cursor do repositório, já com o filtro de igualdade aplicado.
+    private interface ConsultaLinhaDoTempo {
+        List<AuditoriaResumo> buscar(LocalDateTime inicio, LocalDateTime fim, LocalDateTime cursorData, Long cursorId, Pageable pagina);
+    }
+
+    private PaginaAuditoria paginar(LocalDateTime de, LocalDateTime ate, LocalDateTime antesDe, Long antesId, int tamanho,
+                                    ConsultaLinhaDoTempo consulta) {
+        LocalDateTime inicio = de != null ? de : INICIO;
+        LocalDateTime fim = ate != null ? ate : FIM;
+        LocalDateTime cursorData = antesDe != null ? antesDe : FIM;
+        Long cursorId = antesId != null ? antesId : Long.MAX_VALUE;
+        int limite = Math.max(1, Math.min(tamanho, paginaMaxima));
+        // Pede um a mais para saber se existe próxima página sem um COUNT.
+        Pageable pagina = PageRequest.of(0, limite + 1);
+
+        List<AuditoriaResumo> registros = consulta.buscar(inicio, fim, cursorData, cursorId, pagina);
+
+        if (registros.size() <= limite) {
+            return new PaginaAuditoria(registros, null, null);
+        }
+        List<AuditoriaResumo> exibidos = registros.subList(0, limite);
+        AuditoriaResumo ultimo = exibidos.get(limite - 1);
+        return new PaginaAuditoria(List.copyOf(exibidos), ultimo.dataRegistro(), ultimo.id());
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<AuditoriaDetalhe> buscarDetalhes(Long logId) {
+        return auditoriaDetalheRepository.findById(logId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.portaria.controle_itens.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "app.notificacao.email.habilitado", havingValue = "true")
+public class CanalEmail implements CanalNotificacao {
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${app.notificacao.email.remetente}")
+    private String remetente;
+
+    @Value("${app.notificacao.email.destinatarios}")
+    private String[] destinatarios;
+
+    @Override
+    public String getNome() {
+        return "EMAIL";
+    }
+
+    @Override
+    public void enviar(ResumoAtrasos resumo) {
+        SimpleMailMessage mensagem = new SimpleMailMessage();
+        mensagem.setFrom(remetente);
+        mensagem.setTo(destinatarios);
+        mensagem.setSubject(resumo.assunto());
+        mensagem.setText(resumo.texto());
+        mailSender.send(mensagem);
+    }
+}
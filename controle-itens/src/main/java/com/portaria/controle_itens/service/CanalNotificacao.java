@@ -0,0 +1,9 @@
+package com.portaria.controle_itens.service;
+
+public interface CanalNotificacao {
+
+    // Gravado em notificacao_outbox.canal; não deve mudar depois que houver linhas pendentes.
+    String getNome();
+
+    void enviar(ResumoAtrasos resumo) throws Exception;
+}
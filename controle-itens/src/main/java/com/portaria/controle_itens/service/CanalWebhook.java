@@ -0,0 +1,69 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.model.NotificacaoOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "app.notificacao.webhook.habilitado", havingValue = "true")
+public class CanalWebhook implements CanalNotificacao {
+
+    private final RestClient restClient;
+    private final String url;
+
+    // Sem timeouts, um destino que não responde prende o despacho além da reserva do resumo
+    // (app.notificacao.reserva-segundos), e outra instância reenviaria o mesmo aviso.
+    public CanalWebhook(RestClient.Builder builder,
+                        @Value("${app.notificacao.webhook.url}") String url,
+                        @Value("${app.notificacao.webhook.connect-timeout-ms:5000}") long connectTimeoutMs,
+                        @Value("${app.notificacao.webhook.read-timeout-ms:10000}") long readTimeoutMs) {
+        SimpleClientHttpRequestFactory fabrica = new SimpleClientHttpRequestFactory();
+        fabrica.setConnectTimeout(Duration.ofMillis(connectTimeoutMs));
+        fabrica.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        this.restClient = builder.requestFactory(fabrica).build();
+        this.url = url;
+    }
+
+    @Override
+    public String getNome() {
+        return "WEBHOOK";
+    }
+
+    @Override
+    public void enviar(ResumoAtrasos resumo) {
+        List<Map<String, Object>> atrasos = new ArrayList<>();
+        for (NotificacaoOutbox atraso : resumo.atrasos()) {
+            Map<String, Object> linha = new LinkedHashMap<>();
+            linha.put("movimentacaoId", atraso.getMovimentacaoId());
+            linha.put("itemId", atraso.getItemId());
+            linha.put("itemNome", atraso.getItemNome());
+            linha.put("quantidade", atraso.getQuantidade());
+            linha.put("dataPrevistaDevolucao", atraso.getDataPrevistaDevolucao());
+            atrasos.add(linha);
+        }
+
+        Map<String, Object> corpo = new LinkedHashMap<>();
+        corpo.put("funcionario", resumo.funcionario());
+        corpo.put("assunto", resumo.assunto());
+        corpo.put("texto", resumo.texto());
+        corpo.put("atrasos", atrasos);
+
+        // Respostas 4xx/5xx viram exceção e a notificação volta para nova tentativa.
+        restClient.post()
+            .uri(url)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(corpo)
+            .retrieve()
+            .toBodilessEntity();
+    }
+}
@@ -0,0 +1,204 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.model.Estoque;
+import com.portaria.controle_itens.model.EstoqueConsolidado;
+import com.portaria.controle_itens.model.Item;
+import com.portaria.controle_itens.model.Local;
+import com.portaria.controle_itens.repository.EstoqueConsolidadoRepository;
+import com.portaria.controle_itens.repository.EstoqueRepository;
+import com.portaria.controle_itens.repository.LocalRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class EstoqueService {
+
+    @Autowired
+    private EstoqueRepository estoqueRepository;
+
+    @Autowired
+    private EstoqueConsolidadoRepository estoqueConsolidadoRepository;
+
+    @Autowired
+    private LocalRepository localRepository;
+
+    @Autowired
+    private TravaExecucaoService travaExecucaoService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.estoque.local-padrao:PRINCIPAL}")
+    private String nomeLocalPadrao;
+
+    private volatile Long idLocalPadrao;
+
+    private TransactionTemplate transacao;
+    private TransactionTemplate novaTransacao;
+
+    @PostConstruct
+    public void iniciar() {
+        transacao = new TransactionTemplate(transactionManager);
+        novaTransacao = new TransactionTemplate(transactionManager);
+        novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Local getLocalPadrao() {
+        if (idLocalPadrao != null) {
+            Optional<Local> local = localRepository.findById(idLocalPadrao);
+            if (local.isPresent()) {
+                return local.get();
+            }
+        }
+        Local local = localRepository.findByNome(nomeLocalPadrao).orElseGet(this::criarLocalPadrao);
+        idLocalPadrao = local.getId();
+        return local;
+    }
+
+    private Local criarLocalPadrao() {
+        try {
+            return localRepository.saveAndFlush(new Local(null, nomeLocalPadrao, "Local padrão"));
+        } catch (DataIntegrityViolationException e) {
+            return localRepository.findByNome(nomeLocalPadrao).orElseThrow();
+        }
+    }
+
+    public Optional<Local> resolverLocal(Long localId) {
+        return localId == null ? Optional.of(getLocalPadrao()) : localRepository.findById(localId);
+    }
+
+    public Optional<Estoque> buscarParticao(Long itemId, Long localId) {
+        Long id = localId != null ? localId : getLocalPadrao().getId();
+        return estoqueRepository.findByItem_IdAndLocal_Id(itemId, id);
+    }
+
+    // A criação roda em transação própria: se outra requisição criar a mesma partição ao mesmo tempo,
+    // a violação de unicidade não deixa a transação de quem chamou marcada para rollback.
+    public Estoque obterOuCriarParticao(Item item, Local local) {
+        Optional<Estoque> existente = estoqueRepository.findByItem_IdAndLocal_Id(item.getId(), local.getId());
+        if (existente.isPresent()) {
+            return existente.get();
+        }
+        try {
+            return novaTransacao.execute(status -> {
+                Estoque estoque = new Estoque();
+                estoque.setItem(item);
+                estoque.setLocal(local);
+                return estoqueRepository.saveAndFlush(estoque);
+            });
+        } catch (DataIntegrityViolationException e) {
+            return estoqueRepository.findByItem_IdAndLocal_Id(item.getId(), local.getId()).orElseThrow();
+        }
+    }
+
+    // A partição de destino é criada antes, fora da transação da transferência.
+    public void transferir(Item item, Local origem, Local destino, int quantidade) {
+        Estoque entrada = obterOuCriarParticao(item, destino);
+        Estoque saida = estoqueRepository.findByItem_IdAndLocal_Id(item.getId(), origem.getId())
+            .orElseThrow(() -> new IllegalArgumentException("Item sem estoque no local de origem."));
+
+        transacao.executeWithoutResult(status -> {
+            LocalDateTime agora = LocalDateTime.now();
+            // Bloqueia as duas linhas sempre na mesma ordem, para transferências opostas não se travarem.
+            if (saida.getId() < entrada.getId()) {
+                debitarTransferencia(saida.getId(), quantidade, agora);
+                estoqueRepository.transferirEntrada(entrada.getId(), quantidade, agora);
+            } else {
+                estoqueRepository.transferirEntrada(entrada.getId(), quantidade, agora);
+                debitarTransferencia(saida.getId(), quantidade, agora);
+            }
+        });
+        atualizarConsolidadoAposCommit(item.getId());
+    }
+
+    private void debitarTransferencia(Long estoqueId, int quantidade, LocalDateTime agora) {
+        if (estoqueRepository.transferirSaida(estoqueId, quantidade, agora) == 0) {
+            throw new IllegalStateException("Estoque disponível insuficiente no local de origem.");
+        }
+    }
+
+    // Leitura pura: pode estar roteada para a réplica. Item ainda não consolidado tem o total somado
+    // na hora, sem gravar; a próxima consolidação cria a linha.
+    public Optional<EstoqueConsolidado> consultarConsolidado(Long itemId) {
+        Optional<EstoqueConsolidado> consolidado = estoqueConsolidadoRepository.findById(itemId);
+        return consolidado.isPresent() ? consolidado : somarParticoes(itemId);
+    }
+
+    public Optional<EstoqueConsolidado> recalcularConsolidado(Long itemId) {
+        return somarParticoes(itemId).map(estoqueConsolidadoRepository::save);
+    }
+
+    private Optional<EstoqueConsolidado> somarParticoes(Long itemId) {
+        List<Object[]> somas = estoqueRepository.somarPorItem(itemId);
+        return somas.isEmpty() ? Optional.empty() : Optional.of(paraConsolidado(somas.get(0), LocalDateTime.now()));
+    }
+
+    // Atualiza o total do item assim que a escrita é confirmada, para quem escreveu ver o novo saldo
+    // sem esperar a próxima consolidação. As demais instâncias leem o total pela consolidação periódica.
+    public void atualizarConsolidadoAposCommit(Long itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recalcularEmNovaTransacao(itemId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recalcularEmNovaTransacao(itemId);
+            }
+        });
+    }
+
+    private void recalcularEmNovaTransacao(Long itemId) {
+        try {
+            novaTransacao.executeWithoutResult(status -> recalcularConsolidado(itemId));
+        } catch (Exception e) {
+            // A consolidação periódica corrige na próxima rodada.
+            System.out.println("Falha ao atualizar total consolidado do item " + itemId + ": " + e.getMessage());
+        }
+    }
+
+    public void removerConsolidado(Long itemId) {
+        estoqueConsolidadoRepository.deleteById(itemId);
+    }
+
+    // As retiradas só tocam a linha do próprio local; o total por item é refeito aqui para os itens
+    // cuja soma de versões das partições difere da gravada no consolidado. Não guarda estado entre
+    // rodadas, então a instância que assumir o lease continua de onde o banco está.
+    @Scheduled(fixedDelayString = "${app.estoque.consolidacao-ms:2000}")
+    public void consolidarEstoque() {
+        if (!travaExecucaoService.tentarAdquirir("consolidarEstoque")) {
+            return;
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<EstoqueConsolidado> atualizados = new ArrayList<>();
+        for (Object[] soma : estoqueRepository.somarPorItemDesatualizado()) {
+            atualizados.add(paraConsolidado(soma, agora));
+        }
+        estoqueConsolidadoRepository.saveAll(atualizados);
+        estoqueConsolidadoRepository.removerSemParticoes();
+    }
+
+    private EstoqueConsolidado paraConsolidado(Object[] soma, LocalDateTime agora) {
+        return new EstoqueConsolidado(
+            ((Number) soma[0]).longValue(),
+            ((Number) soma[1]).intValue(),
+            ((Number) soma[2]).intValue(),
+            ((Number) soma[3]).longValue(),
+            agora);
+    }
+}
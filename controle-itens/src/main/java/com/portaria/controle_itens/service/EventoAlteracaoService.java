@@ -0,0 +1,117 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.config.IdentificadorInstancia;
+import com.portaria.controle_itens.model.EventoAlteracao;
+import com.portaria.controle_itens.repository.EventoAlteracaoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class EventoAlteracaoService {
+
+    public static final String ITEM = "ITEM";
+    public static final String ESTOQUE = "ESTOQUE";
+    public static final String MOVIMENTACAO = "MOVIMENTACAO";
+    public static final String RESERVA = "RESERVA";
+
+    @Autowired
+    private EventoAlteracaoRepository eventoAlteracaoRepository;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private IdentificadorInstancia instancia;
+
+    @Autowired
+    private TravaExecucaoService travaExecucaoService;
+
+    @Value("${app.eventos.lote:500}")
+    private int tamanhoLote;
+
+    @Value("${app.eventos.espera-lacuna-segundos:30}")
+    private long esperaLacunaSegundos;
+
+    @Value("${app.eventos.retencao-horas:24}")
+    private long retencaoHoras;
+
+    private Long ultimoIdLido;
+
+    // Ids pulados na sequência: podem ser transações ainda não confirmadas que
+    // receberam o id antes de um evento já lido. Ficam sendo reconsultados por um tempo.
+    private final Map<Long, LocalDateTime> lacunas = new ConcurrentHashMap<>();
+
+    public void publicar(String entidade, Long entidadeId, String tipo) {
+        EventoAlteracao evento = new EventoAlteracao();
+        evento.setEntidade(entidade);
+        evento.setEntidadeId(entidadeId);
+        evento.setTipo(tipo);
+        evento.setOrigem(instancia.getId());
+        evento.setDataRegistro(LocalDateTime.now());
+        eventoAlteracaoRepository.save(evento);
+    }
+
+    @Scheduled(fixedDelayString = "${app.eventos.intervalo-ms:2000}")
+    public synchronized void consumirEventos() {
+        if (ultimoIdLido == null) {
+            // Ao subir, a instância parte do estado atual do banco; não há o que invalidar.
+            ultimoIdLido = eventoAlteracaoRepository.findMaxId();
+            return;
+        }
+
+        reconsultarLacunas();
+
+        List<EventoAlteracao> lote;
+        do {
+            lote = eventoAlteracaoRepository.findByIdGreaterThanOrderByIdAsc(ultimoIdLido, PageRequest.of(0, tamanhoLote));
+            for (EventoAlteracao evento : lote) {
+                for (long faltante = ultimoIdLido + 1; faltante < evento.getId(); faltante++) {
+                    lacunas.put(faltante, LocalDateTime.now());
+                }
+                despachar(evento);
+                ultimoIdLido = evento.getId();
+            }
+        } while (lote.size() == tamanhoLote);
+    }
+
+    private void reconsultarLacunas() {
+        if (lacunas.isEmpty()) {
+            return;
+        }
+        for (EventoAlteracao evento : eventoAlteracaoRepository.findByIdInOrderByIdAsc(new ArrayList<>(lacunas.keySet()))) {
+            lacunas.remove(evento.getId());
+            despachar(evento);
+        }
+        // Ids que nunca aparecem pertencem a transações desfeitas.
+        LocalDateTime limite = LocalDateTime.now().minusSeconds(esperaLacunaSegundos);
+        lacunas.values().removeIf(desde -> desde.isBefore(limite));
+    }
+
+    private void despachar(EventoAlteracao evento) {
+        try {
+            publisher.publishEvent(new AlteracaoEvent(evento.getId(), evento.getEntidade(), evento.getEntidadeId(),
+                    evento.getTipo(), evento.getOrigem(), evento.getDataRegistro()));
+        } catch (Exception e) {
+            System.out.println("Falha ao processar evento de alteração " + evento.getId() + ": " + e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.eventos.limpeza-cron:0 0 * * * *}")
+    public void limparEventosAntigos() {
+        if (!travaExecucaoService.tentarAdquirir("limparEventosAntigos")) {
+            return;
+        }
+        int removidos = eventoAlteracaoRepository.deleteByDataRegistroBefore(LocalDateTime.now().minusHours(retencaoHoras));
+        System.out.println("--- Limpeza de eventos de alteração: " + removidos + " removidos ---");
+    }
+}
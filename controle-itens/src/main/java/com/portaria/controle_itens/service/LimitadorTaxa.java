@@ -0,0 +1,40 @@
+package com.portaria.controle_itens.service;
+
+import java.util.function.LongSupplier;
+
+// Balde de fichas simples: até "capacidade" envios de uma vez, repostos à taxa de capacidade por minuto.
+class LimitadorTaxa {
+
+    private final int capacidade;
+    private final LongSupplier relogio;
+    private double fichas;
+    private long ultimaReposicao;
+
+    LimitadorTaxa(int porMinuto) {
+        this(porMinuto, System::nanoTime);
+    }
+
+    // O relógio (em nanossegundos) é trocado nos testes.
+    LimitadorTaxa(int porMinuto, LongSupplier relogio) {
+        this.capacidade = Math.max(1, porMinuto);
+        this.relogio = relogio;
+        this.fichas = this.capacidade;
+        this.ultimaReposicao = relogio.getAsLong();
+    }
+
+    synchronized boolean tentarConsumir() {
+        long agora = relogio.getAsLong();
+        fichas = Math.min(capacidade, fichas + (agora - ultimaReposicao) * capacidade / 60_000_000_000.0);
+        ultimaReposicao = agora;
+        if (fichas >= 1) {
+            fichas -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    // Devolve uma ficha consumida por um envio que acabou não acontecendo.
+    synchronized void devolver() {
+        fichas = Math.min(capacidade, fichas + 1);
+    }
+}
@@ -0,0 +1,203 @@
+package com.portaria.controle_itens.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+
+// Ajustes de dados que o ddl-auto=update não faz sozinho. Cada passo é idempotente.
+@Service
+public class MigracaoService {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private TravaExecucaoService travaExecucaoService;
+
+    // Só depois que nenhuma instância da versão antiga estiver no ar: elas ainda leem a tabela "estoque".
+    @Value("${app.migracao.limpar-estoque-antigo:false}")
+    private boolean limparEstoqueAntigo;
+
+    // Remover a coluna reescreve a tabela inteira e quebra instâncias antigas, que ainda gravam nela;
+    // por isso é um passo à parte, ligado depois que todas estiverem na versão nova.
+    @Value("${app.migracao.remover-detalhes-auditoria:false}")
+    private boolean removerDetalhesAuditoria;
+
+    private volatile boolean estoqueAntigoPodeExistir = true;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrar() {
+        if (!travaExecucaoService.tentarAdquirir("migracao")) {
+            return;
+        }
+        try {
+            migrarEstoquePorLocal();
+            contarReservasAtivas();
+            migrarDetalhesAuditoria();
+            removerIndicesAntigos();
+        } catch (Exception e) {
+            System.out.println("Falha na migração de dados: " + e.getMessage());
+        } finally {
+            travaExecucaoService.liberar("migracao");
+        }
+    }
+
+    // A tabela "estoque" antiga tinha uma linha por item; ela vira a partição do local padrão.
+    private void migrarEstoquePorLocal() {
+        Long localPadrao = estoqueService.getLocalPadrao().getId();
+        LocalDateTime agora = LocalDateTime.now();
+
+        if (tabelaExiste("estoque")) {
+            Integer copiados = transactionTemplate.execute(status -> {
+                int n = jdbcTemplate.update(
+                    "INSERT INTO estoque_local (item_id, local_id, quantidade_total, quantidade_disponivel, atualizado_em) " +
+                    "SELECT a.item_id, ?, a.quantidade_total, a.quantidade_disponivel, ? FROM estoque a " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM estoque_local n WHERE n.item_id = a.item_id)",
+                    localPadrao, agora);
+                if (limparEstoqueAntigo) {
+                    // Esvazia a tabela antiga para que sua chave estrangeira não impeça excluir itens.
+                    jdbcTemplate.update("DELETE FROM estoque");
+                }
+                return n;
+            });
+            if (copiados != null && copiados > 0) {
+                System.out.println("--- Migração: " + copiados + " registros de estoque movidos para o local padrão ---");
+            }
+        }
+
+        jdbcTemplate.update("UPDATE estoque_local SET local_id = ?, atualizado_em = ? WHERE local_id IS NULL", localPadrao, agora);
+        jdbcTemplate.update("UPDATE movimentacao SET local_id = ? WHERE local_id IS NULL", localPadrao);
+    }
+
+    // Itens anteriores ao contador de reservas ficam com ele nulo (tratado como "tem reservas") até esta contagem.
+    // O UPDATE trava a linha do item, então não se cruza com uma reserva sendo criada ou encerrada.
+    private void contarReservasAtivas() {
+        Integer contados = transactionTemplate.execute(status -> jdbcTemplate.update(
+            "UPDATE item SET reservas_ativas = (SELECT COUNT(*) FROM reserva r WHERE r.item_id = item.id AND r.status = ?) " +
+            "WHERE reservas_ativas IS NULL", "ATIVA"));
+        if (contados != null && contados > 0) {
+            System.out.println("--- Migração: reservas ativas contadas em " + contados + " itens ---");
+        }
+    }
+
+    // Os detalhes saíram de auditoria_log para auditoria_detalhe; a coluna antiga é copiada a cada subida
+    // (pega o que instâncias antigas gravaram nesse meio tempo) e só é removida quando configurado.
+    private void migrarDetalhesAuditoria() {
+        if (!colunaExiste("auditoria_log", "detalhes")) {
+            return;
+        }
+        Integer copiados = transactionTemplate.execute(status -> jdbcTemplate.update(
+            "INSERT INTO auditoria_detalhe (log_id, detalhes) " +
+            "SELECT a.id, a.detalhes FROM auditoria_log a " +
+            "WHERE a.detalhes IS NOT NULL AND NOT EXISTS (SELECT 1 FROM auditoria_detalhe d WHERE d.log_id = a.id)"));
+        if (copiados != null && copiados > 0) {
+            System.out.println("--- Migração: " + copiados + " detalhes de auditoria copiados para auditoria_detalhe ---");
+        }
+        if (removerDetalhesAuditoria) {
+            jdbcTemplate.execute("ALTER TABLE auditoria_log DROP COLUMN detalhes");
+            System.out.println("--- Migração: coluna auditoria_log.detalhes removida ---");
+        }
+    }
+
+    // Índices que saíram das entidades: o ddl-auto=update não os remove, e eles só custariam escrita.
+    // Os da linha do tempo foram trocados por versões que cobrem a projeção; o de estoque_local.atualizado_em
+    // servia à consolidação por data, hoje feita por versão.
+    private void removerIndicesAntigos() {
+        String[][] antigos = {
+            { "auditoria_log", "idx_auditoria_item_data" },
+            { "auditoria_log", "idx_auditoria_acao_data" },
+            { "auditoria_log", "idx_auditoria_usuario_data" },
+            { "auditoria_log", "idx_auditoria_data" },
+            { "estoque_local", "idx_estoque_local_atualizado" }
+        };
+        for (String[] antigo : antigos) {
+            if (indiceExiste(antigo[0], antigo[1])) {
+                jdbcTemplate.execute("DROP INDEX " + antigo[1] + " ON " + antigo[0]);
+                System.out.println("--- Migração: índice " + antigo[1] + " removido ---");
+            }
+        }
+    }
+
+    // Enquanto a tabela "estoque" antiga existir, a chave estrangeira dela para item impede excluir
+    // o item; a exclusão apaga antes a linha antiga, na mesma transação.
+    public void removerEstoqueAntigo(Long itemId) {
+        if (!estoqueAntigoPodeExistir) {
+            return;
+        }
+        if (!tabelaExiste("estoque")) {
+            // A tabela não volta a ser criada: o mapeamento atual é estoque_local.
+            estoqueAntigoPodeExistir = false;
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM estoque WHERE item_id = ?", itemId);
+    }
+
+    private boolean indiceExiste(String tabela, String indice) {
+        try (Connection conexao = dataSource.getConnection()) {
+            DatabaseMetaData meta = conexao.getMetaData();
+            for (String candidato : new String[] { tabela, tabela.toUpperCase() }) {
+                try (ResultSet rs = meta.getIndexInfo(conexao.getCatalog(), null, candidato, false, true)) {
+                    while (rs.next()) {
+                        if (indice.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean colunaExiste(String tabela, String coluna) {
+        try (Connection conexao = dataSource.getConnection()) {
+            DatabaseMetaData meta = conexao.getMetaData();
+            for (String[] candidato : new String[][] { { tabela, coluna }, { tabela.toUpperCase(), coluna.toUpperCase() } }) {
+                try (ResultSet rs = meta.getColumns(conexao.getCatalog(), null, candidato[0], candidato[1])) {
+                    if (rs.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean tabelaExiste(String nome) {
+        try (Connection conexao = dataSource.getConnection()) {
+            DatabaseMetaData meta = conexao.getMetaData();
+            for (String candidato : new String[] { nome, nome.toUpperCase() }) {
+                try (ResultSet rs = meta.getTables(conexao.getCatalog(), null, candidato, new String[] { "TABLE" })) {
+                    if (rs.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.config.IdentificadorInstancia;
+import com.portaria.controle_itens.model.Movimentacao;
+import com.portaria.controle_itens.model.NotificacaoOutbox;
+import com.portaria.controle_itens.repository.NotificacaoOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class NotificacaoService {
+
+    @Autowired
+    private NotificacaoOutboxRepository notificacaoOutboxRepository;
+
+    @Autowired
+    private TravaExecucaoService travaExecucaoService;
+
+    @Autowired
+    private IdentificadorInstancia instancia;
+
+    @Autowired(required = false)
+    private List<CanalNotificacao> canaisDisponiveis = List.of();
+
+    @Value("${app.notificacao.lote:200}")
+    private int tamanhoLote;
+
+    @Value("${app.notificacao.max-por-minuto:30}")
+    private int maximoPorMinuto;
+
+    @Value("${app.notificacao.max-tentativas:8}")
+    private int maximoTentativas;
+
+    @Value("${app.notificacao.espera-inicial-segundos:30}")
+    private long esperaInicialSegundos;
+
+    @Value("${app.notificacao.espera-maxima-segundos:3600}")
+    private long esperaMaximaSegundos;
+
+    // Prazo da reserva de um resumo; precisa passar com folga dos timeouts do canal (spring.mail.properties...).
+    @Value("${app.notificacao.reserva-segundos:300}")
+    private long reservaSegundos;
+
+    private final Map<String, LimitadorTaxa> limitadores = new ConcurrentHashMap<>();
+
+    // Chamado pelo AlarmeService na mesma transação que marca a movimentação como ATRASADO. Grava só
+    // os canais ligados nesta instância; os demais são preenchidos pelo despacho (preencherCanais).
+    public void registrarAtraso(Movimentacao mov) {
+        LocalDateTime agora = LocalDateTime.now();
+        for (CanalNotificacao canal : canaisDisponiveis) {
+            NotificacaoOutbox notificacao = new NotificacaoOutbox();
+            notificacao.setMovimentacaoId(mov.getId());
+            notificacao.setCanal(canal.getNome());
+            notificacao.setFuncionario(mov.getFuncionarioSolicitante());
+            notificacao.setItemId(mov.getItem() != null ? mov.getItem().getId() : null);
+            notificacao.setItemNome(mov.getItemNome());
+            notificacao.setQuantidade(mov.getQuantidade());
+            notificacao.setDataPrevistaDevolucao(mov.getDataPrevistaDevolucao());
+            notificacao.setStatus(NotificacaoOutbox.PENDENTE);
+            notificacao.setProximaTentativa(agora);
+            notificacao.setDataRegistro(agora);
+            notificacaoOutboxRepository.save(notificacao);
+        }
+    }
+
+    // Roda fora da thread do alarme: envia em resumos por funcionário, respeitando o limite por canal.
+    @Scheduled(fixedDelayString = "${app.notificacao.intervalo-ms:15000}")
+    public void despacharPendentes() {
+        if (canaisDisponiveis.isEmpty() || !travaExecucaoService.tentarAdquirir("despacharNotificacoes")) {
+            return;
+        }
+
+        Map<String, CanalNotificacao> canais = canaisDisponiveis.stream()
+            .collect(Collectors.toMap(CanalNotificacao::getNome, Function.identity()));
+        preencherCanais(canais.keySet());
+
+        List<NotificacaoOutbox> pendentes = notificacaoOutboxRepository
+            .buscarParaEnvio(LocalDateTime.now(), PageRequest.of(0, tamanhoLote));
+
+        Map<String, List<NotificacaoOutbox>> resumos = new LinkedHashMap<>();
+        for (NotificacaoOutbox notificacao : pendentes) {
+            resumos.computeIfAbsent(notificacao.getCanal() + "|" + notificacao.getFuncionario(), k -> new ArrayList<>()).add(notificacao);
+        }
+
+        int enviados = 0;
+        for (List<NotificacaoOutbox> grupo : resumos.values()) {
+            NotificacaoOutbox primeira = grupo.get(0);
+            CanalNotificacao canal = canais.get(primeira.getCanal());
+            if (canal == null) {
+                // Canal desativado depois do registro: fica pendente até ser reativado.
+                continue;
+            }
+            LimitadorTaxa limitador = limitadores.computeIfAbsent(canal.getNome(), n -> new LimitadorTaxa(maximoPorMinuto));
+            if (!limitador.tentarConsumir()) {
+                continue;
+            }
+
+            // A trava do job só é renovada no início da rodada; se a rodada demorar mais que ela e outra
+            // instância começar a despachar, a reserva por linha garante que cada aviso sai uma vez só.
+            // Um grupo que já estava com outra instância não gasta a ficha.
+            List<NotificacaoOutbox> reservadas = reservar(grupo);
+            if (reservadas.isEmpty()) {
+                limitador.devolver();
+                continue;
+            }
+
+            try {
+                canal.enviar(new ResumoAtrasos(primeira.getFuncionario(), reservadas));
+                marcarEnviadas(reservadas);
+                enviados++;
+            } catch (Exception e) {
+                reagendar(reservadas, e);
+            }
+        }
+
+        if (enviados > 0) {
+            System.out.println("--- Notificações de atraso: " + enviados + " resumos enviados ---");
+        }
+    }
+
+    // Um atraso detectado quando um canal estava desligado (aqui ou na instância que fez a varredura)
+    // ganha a linha desse canal quando ele aparece ligado no despacho.
+    private void preencherCanais(Collection<String> canais) {
+        LocalDateTime agora = LocalDateTime.now();
+        for (String canal : canais) {
+            try {
+                int preenchidas = notificacaoOutboxRepository.preencherCanal(canal, agora);
+                if (preenchidas > 0) {
+                    System.out.println("--- Notificações de atraso: " + preenchidas + " avisos pendentes criados no canal " + canal + " ---");
+                }
+            } catch (DataIntegrityViolationException e) {
+                // A detecção gravou a mesma linha em paralelo; a próxima rodada preenche o resto.
+            }
+        }
+    }
+
+    private List<NotificacaoOutbox> reservar(List<NotificacaoOutbox> grupo) {
+        List<Long> ids = grupo.stream().map(NotificacaoOutbox::getId).toList();
+        LocalDateTime agora = LocalDateTime.now();
+        if (notificacaoOutboxRepository.reservar(ids, instancia.getId(), agora.plusSeconds(reservaSegundos), agora) == 0) {
+            return List.of();
+        }
+        return notificacaoOutboxRepository.findByIdInAndStatusAndDonoOrderByIdAsc(ids, NotificacaoOutbox.EM_ENVIO, instancia.getId());
+    }
+
+    private void marcarEnviadas(List<NotificacaoOutbox> grupo) {
+        LocalDateTime agora = LocalDateTime.now();
+        for (NotificacaoOutbox notificacao : grupo) {
+            notificacao.setStatus(NotificacaoOutbox.ENVIADA);
+            notificacao.setDataEnvio(agora);
+            notificacao.setTentativas(notificacao.getTentativas() + 1);
+            notificacao.setUltimoErro(null);
+            notificacao.setDono(null);
+            notificacao.setReservadaAte(null);
+        }
+        notificacaoOutboxRepository.saveAll(grupo);
+    }
+
+    // Espera exponencial a partir de espera-inicial, limitada a espera-maxima; após max-tentativas, FALHA.
+    private void reagendar(List<NotificacaoOutbox> grupo, Exception erro) {
+        String mensagem = String.valueOf(erro.getMessage());
+        if (mensagem.length() > 1000) {
+            mensagem = mensagem.substring(0, 1000);
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        for (NotificacaoOutbox notificacao : grupo) {
+            int tentativas = notificacao.getTentativas() + 1;
+            notificacao.setTentativas(tentativas);
+            notificacao.setUltimoErro(mensagem);
+            notificacao.setDono(null);
+            notificacao.setReservadaAte(null);
+            if (tentativas >= maximoTentativas) {
+                notificacao.setStatus(NotificacaoOutbox.FALHA);
+            } else {
+                long espera = Math.min(esperaMaximaSegundos, esperaInicialSegundos << Math.min(tentativas - 1, 20));
+                notificacao.setStatus(NotificacaoOutbox.PENDENTE);
+                notificacao.setProximaTentativa(agora.plusSeconds(espera));
+            }
+        }
+        notificacaoOutboxRepository.saveAll(grupo);
+        System.out.println("Falha ao enviar notificação pelo canal " + grupo.get(0).getCanal() + ": " + mensagem);
+    }
+}
@@ -0,0 +1,11 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.model.AuditoriaResumo;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Uma página da linha do tempo. Para a próxima, repita a consulta com antesDe/antesId = proximoCursor*;
+// ambos nulos indicam que não há mais registros.
+public record PaginaAuditoria(List<AuditoriaResumo> registros, LocalDateTime proximoCursorData, Long proximoCursorId) {
+}
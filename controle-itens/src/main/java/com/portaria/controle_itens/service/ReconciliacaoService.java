@@ -0,0 +1,225 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.config.ControleAdmissao;
+import com.portaria.controle_itens.model.DivergenciaEstoque;
+import com.portaria.controle_itens.model.SaldoParticao;
+import com.portaria.controle_itens.repository.DivergenciaEstoqueRepository;
+import com.portaria.controle_itens.repository.EstoqueRepository;
+import com.portaria.controle_itens.repository.MovimentacaoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Confere, aos poucos, se quantidadeDisponivel = quantidadeTotal - soma das retiradas em aberto
+// em cada partição de estoque. Cada rodada agendada verifica um único lote, pequeno e paginado por id.
+@Service
+public class ReconciliacaoService {
+
+    // Só conta como divergência confirmada a diferença vista igual em duas verificações seguidas;
+    // uma única leitura pode cair entre a baixa do estoque e a gravação da movimentação.
+    public static final int OCORRENCIAS_CONFIRMACAO = 2;
+
+    @Autowired
+    private EstoqueRepository estoqueRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Autowired
+    private DivergenciaEstoqueRepository divergenciaEstoqueRepository;
+
+    @Autowired
+    private AuditoriaService auditoriaService;
+
+    @Autowired
+    private EventoAlteracaoService eventoAlteracaoService;
+
+    @Autowired
+    private TravaExecucaoService travaExecucaoService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private ControleAdmissao controleAdmissao;
+
+    @Value("${app.reconciliacao.lote:100}")
+    private int tamanhoLote;
+
+    @Value("${app.reconciliacao.reparar:false}")
+    private boolean repararAutomaticamente;
+
+    private TransactionTemplate leitura;
+
+    private long cursor = 0;
+
+    private Counter verificados;
+    private Counter reparos;
+
+    @PostConstruct
+    public void iniciar() {
+        leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+
+        verificados = meterRegistry.counter("estoque.reconciliacao.verificados");
+        reparos = meterRegistry.counter("estoque.reconciliacao.reparos");
+        // Lido da tabela a cada coleta, e não guardado em memória: só a dona do lease faz a varredura,
+        // e as demais instâncias publicariam um valor parado.
+        Gauge.builder("estoque.reconciliacao.divergencias", divergenciaEstoqueRepository,
+                      r -> r.countByOcorrenciasGreaterThanEqual(OCORRENCIAS_CONFIRMACAO))
+            .description("Partições de estoque com divergência confirmada")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.reconciliacao.intervalo-ms:5000}", initialDelayString = "${app.reconciliacao.atraso-inicial-ms:60000}")
+    public void verificarProximoLote() {
+        if (!travaExecucaoService.tentarAdquirir("reconciliarEstoque")) {
+            cursor = 0;
+            return;
+        }
+
+        // Portaria perto do limite: a rodada fica para depois, sem perder o cursor.
+        if (controleAdmissao != null && controleAdmissao.isPortariaSobPressao()) {
+            return;
+        }
+
+        List<Verificacao> lote = ler(cursor);
+        if (lote.isEmpty()) {
+            // Fim da volta completa; a próxima rodada recomeça do primeiro estoque. Divergências de partições
+            // que deixaram de existir nunca mais seriam conferidas, então saem aqui.
+            cursor = 0;
+            divergenciaEstoqueRepository.removerSemParticao();
+            return;
+        }
+        cursor = lote.get(lote.size() - 1).saldo().id();
+
+        registrar(lote);
+        verificados.increment(lote.size());
+    }
+
+    public List<DivergenciaEstoque> listarDivergencias(boolean somenteConfirmadas) {
+        return somenteConfirmadas
+            ? divergenciaEstoqueRepository.findByOcorrenciasGreaterThanEqualOrderByItemIdAsc(OCORRENCIAS_CONFIRMACAO)
+            : divergenciaEstoqueRepository.findAllByOrderByItemIdAsc();
+    }
+
+    private record Verificacao(SaldoParticao saldo, int emAberto) {
+        int esperado() {
+            return saldo.quantidadeTotal() - emAberto;
+        }
+
+        boolean confere() {
+            return saldo.quantidadeDisponivel() == esperado();
+        }
+    }
+
+    // Lote de partições e a soma em aberto delas na mesma transação somente leitura,
+    // para as duas consultas enxergarem o mesmo instante. Duas consultas por lote, qualquer que seja o número de itens.
+    private List<Verificacao> ler(long aPartirDe) {
+        return leitura.execute(status -> {
+            List<SaldoParticao> saldos = estoqueRepository.buscarSaldosAPartirDe(aPartirDe, PageRequest.of(0, tamanhoLote));
+            if (saldos.isEmpty()) {
+                return List.of();
+            }
+
+            Set<Long> itens = saldos.stream().map(SaldoParticao::itemId).collect(Collectors.toSet());
+            Map<String, Integer> emAberto = new HashMap<>();
+            for (Object[] soma : movimentacaoRepository.somarEmAbertoPorItemELocal(itens)) {
+                emAberto.put(chave(soma[0], soma[1]), ((Number) soma[2]).intValue());
+            }
+
+            List<Verificacao> verificacoes = new ArrayList<>();
+            for (SaldoParticao saldo : saldos) {
+                verificacoes.add(new Verificacao(saldo, emAberto.getOrDefault(chave(saldo.itemId(), saldo.localId()), 0)));
+            }
+            return verificacoes;
+        });
+    }
+
+    private void registrar(List<Verificacao> lote) {
+        Map<Long, DivergenciaEstoque> anteriores = divergenciaEstoqueRepository
+            .findByEstoqueIdIn(lote.stream().map(v -> v.saldo().id()).toList())
+            .stream().collect(Collectors.toMap(DivergenciaEstoque::getEstoqueId, Function.identity()));
+
+        LocalDateTime agora = LocalDateTime.now();
+        for (Verificacao verificacao : lote) {
+            SaldoParticao saldo = verificacao.saldo();
+            DivergenciaEstoque anterior = anteriores.get(saldo.id());
+
+            if (verificacao.confere()) {
+                if (anterior != null) {
+                    divergenciaEstoqueRepository.delete(anterior);
+                }
+                continue;
+            }
+
+            boolean mesmaDiferenca = anterior != null
+                && anterior.getQuantidadeDisponivel() == saldo.quantidadeDisponivel()
+                && anterior.getQuantidadeEsperada() == verificacao.esperado();
+
+            DivergenciaEstoque divergencia = mesmaDiferenca ? anterior : new DivergenciaEstoque();
+            divergencia.setEstoqueId(saldo.id());
+            divergencia.setItemId(saldo.itemId());
+            divergencia.setLocalId(saldo.localId());
+            divergencia.setQuantidadeTotal(saldo.quantidadeTotal());
+            divergencia.setQuantidadeDisponivel(saldo.quantidadeDisponivel());
+            divergencia.setQuantidadeEmAberto(verificacao.emAberto());
+            divergencia.setQuantidadeEsperada(verificacao.esperado());
+            divergencia.setOcorrencias(mesmaDiferenca ? anterior.getOcorrencias() + 1 : 1);
+            divergencia.setPrimeiraDeteccao(mesmaDiferenca ? anterior.getPrimeiraDeteccao() : agora);
+            divergencia.setUltimaDeteccao(agora);
+
+            if (repararAutomaticamente && divergencia.getOcorrencias() >= OCORRENCIAS_CONFIRMACAO && reparar(divergencia)) {
+                divergenciaEstoqueRepository.deleteById(divergencia.getEstoqueId());
+            } else {
+                divergenciaEstoqueRepository.save(divergencia);
+            }
+        }
+    }
+
+    // Mais unidades em aberto do que o total não tem correção automática segura; fica só no relatório.
+    private boolean reparar(DivergenciaEstoque divergencia) {
+        int esperado = divergencia.getQuantidadeEsperada();
+        if (esperado < 0 || esperado > divergencia.getQuantidadeTotal()) {
+            return false;
+        }
+        int corrigidos = estoqueRepository.corrigirDisponivel(
+            divergencia.getEstoqueId(), esperado, divergencia.getQuantidadeDisponivel(), LocalDateTime.now());
+        if (corrigidos == 0) {
+            // O disponível mudou desde a verificação; a próxima volta confere de novo.
+            return false;
+        }
+
+        reparos.increment();
+        auditoriaService.registrarLog("RECONCILIACAO_ESTOQUE", divergencia.getItemId(),
+            String.format("Disponível corrigido de %d para %d (total %d, em aberto %d, estoque id=%d, local id=%s).",
+                          divergencia.getQuantidadeDisponivel(), esperado, divergencia.getQuantidadeTotal(),
+                          divergencia.getQuantidadeEmAberto(), divergencia.getEstoqueId(), divergencia.getLocalId()));
+        eventoAlteracaoService.publicar(EventoAlteracaoService.ESTOQUE, divergencia.getItemId(), "ATUALIZACAO");
+        return true;
+    }
+
+    private static String chave(Object itemId, Object localId) {
+        return itemId + ":" + localId;
+    }
+}
@@ -0,0 +1,486 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.config.IdentificadorInstancia;
+import com.portaria.controle_itens.model.Item;
+import com.portaria.controle_itens.model.Movimentacao;
+import com.portaria.controle_itens.model.PrevisaoItem;
+import com.portaria.controle_itens.model.Reserva;
+import com.portaria.controle_itens.repository.EstoqueRepository;
+import com.portaria.controle_itens.repository.ItemRepository;
+import com.portaria.controle_itens.repository.MovimentacaoRepository;
+import com.portaria.controle_itens.repository.PrevisaoItemRepository;
+import com.portaria.controle_itens.repository.ReservaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Previsão de disponibilidade por item: retiradas em aberto e reservas ativas ficam numa
+// árvore de segmentos por dia, e cada consulta de conflito custa O(log dias).
+@Service
+public class ReservaService {
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Autowired
+    private EstoqueRepository estoqueRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PrevisaoItemRepository previsaoItemRepository;
+
+    @Autowired
+    private EventoAlteracaoService eventoAlteracaoService;
+
+    @Autowired
+    private IdentificadorInstancia instancia;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.reserva.horizonte-dias:365}")
+    private int horizonteDias;
+
+    @Value("${app.reserva.lote-carga:1000}")
+    private int loteCarga;
+
+    private final Map<Long, IndiceItem> indices = new ConcurrentHashMap<>();
+
+    // Itens invalidados enquanto a carga inicial roda; a carga não sobrescreve esses.
+    private volatile Set<Long> invalidadosDuranteCarga;
+
+    private TransactionTemplate novaTransacao;
+
+    private static final long SEM_VERSAO = -1;
+
+    private static class IndiceItem {
+        final LocalDate base;
+        volatile int capacidade;
+        final ArvoreDisponibilidade arvore;
+        // Versão de previsao_item que o índice reflete exatamente. SEM_VERSAO quando montado fora da
+        // trava (consultas, carga inicial): serve para consultas, mas não para conferir retiradas e reservas.
+        volatile long versao = SEM_VERSAO;
+
+        IndiceItem(LocalDate base, int capacidade, ArvoreDisponibilidade arvore) {
+            this.base = base;
+            this.capacidade = capacidade;
+            this.arvore = arvore;
+        }
+
+        int dia(LocalDate data) {
+            return (int) ChronoUnit.DAYS.between(base, data);
+        }
+    }
+
+    // Previsão de um item travada por travarPrevisao na transação de uma retirada, devolução ou reserva.
+    // As alterações entram no índice em cache na hora; se a transação for desfeita, o índice é descartado.
+    // Sem reservas ativas (e fora do modo exclusivo) não há índice: nada a conferir nem a manter.
+    public final class AlteracaoPrevisao {
+        private final Long itemId;
+        private final boolean exclusiva;
+        private final IndiceItem indice;
+        private Integer reservasAtivas;
+
+        private AlteracaoPrevisao(Long itemId, boolean exclusiva, IndiceItem indice, Integer reservasAtivas) {
+            this.itemId = itemId;
+            this.exclusiva = exclusiva;
+            this.indice = indice;
+            this.reservasAtivas = reservasAtivas;
+        }
+
+        // Unidades que podem sair de hoje até "fim" (nulo: todo o horizonte) sem invadir reservas ativas.
+        public int livreAte(LocalDate fim) {
+            if (indice == null) {
+                return Integer.MAX_VALUE;
+            }
+            synchronized (indice) {
+                LocalDate hoje = indice.base;
+                LocalDate ate = fim == null ? hoje.plusDays(horizonteDias - 1L) : (fim.isBefore(hoje) ? hoje : fim);
+                int ultimoDia = Math.min(indice.arvore.getTamanho() - 1, indice.dia(ate));
+                return indice.capacidade - indice.arvore.maximo(0, ultimoDia);
+            }
+        }
+
+        public void somarRetirada(Movimentacao mov) {
+            aplicarMovimentacao(mov, mov.getQuantidade());
+        }
+
+        // Devolução que fecha ou reduz "quantidade" unidades da movimentação.
+        public void descontarDevolucao(Movimentacao mov, int quantidade) {
+            aplicarMovimentacao(mov, -quantidade);
+        }
+
+        private int livreEntre(LocalDate inicio, LocalDate fim) {
+            synchronized (indice) {
+                return indice.capacidade - indice.arvore.maximo(indice.dia(inicio), indice.dia(fim));
+            }
+        }
+
+        private void aplicarMovimentacao(Movimentacao mov, Integer quantidade) {
+            if (indice != null && quantidade != null) {
+                synchronized (indice) {
+                    somarMovimentacao(indice.arvore, indice.base, mov, quantidade);
+                }
+            }
+        }
+
+        private void aplicarReserva(Reserva reserva, int sinal) {
+            synchronized (indice) {
+                somar(indice.arvore, indice.base, reserva.getDataInicio(), reserva.getDataFim(), sinal * reserva.getQuantidade());
+            }
+        }
+
+        // Só no modo exclusivo: o contador fica na linha do item, travada para escrita.
+        private void ajustarReservas(int delta) {
+            if (!exclusiva) {
+                throw new IllegalStateException("Reservas só mudam com a previsão travada em modo exclusivo.");
+            }
+            itemRepository.ajustarReservasAtivas(itemId, delta);
+            if (reservasAtivas != null) {
+                reservasAtivas += delta;
+            }
+        }
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        novaTransacao = new TransactionTemplate(transactionManager);
+        novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public int consultarDisponivel(Long itemId, LocalDate inicio, LocalDate fim) {
+        validarPeriodo(inicio, fim);
+        IndiceItem indice = obterIndice(itemId);
+        synchronized (indice) {
+            return indice.capacidade - indice.arvore.maximo(indice.dia(inicio), indice.dia(fim));
+        }
+    }
+
+    // Primeiro dia a partir de "aPartirDe" em que "quantidade" unidades ficam livres por "dias" dias seguidos.
+    public Optional<LocalDate> buscarPrimeiraJanela(Long itemId, int quantidade, int dias, LocalDate aPartirDe) {
+        LocalDate inicio = aPartirDe.isBefore(LocalDate.now()) ? LocalDate.now() : aPartirDe;
+        IndiceItem indice = obterIndice(itemId);
+        int limite = indice.capacidade - quantidade;
+        if (dias <= 0 || limite < 0) {
+            return Optional.empty();
+        }
+
+        synchronized (indice) {
+            int dia = indice.arvore.primeiraJanela(indice.dia(inicio), dias, limite);
+            return dia == -1 ? Optional.empty() : Optional.of(indice.base.plusDays(dia));
+        }
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Reserva criarReserva(Long itemId, int quantidade, LocalDate inicio, LocalDate fim, String solicitante) {
+        validarPeriodo(inicio, fim);
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("A quantidade reservada deve ser > 0.");
+        }
+
+        AlteracaoPrevisao previsao = travarPrevisao(itemId, true);
+        int livre = previsao.livreEntre(inicio, fim);
+        if (livre < quantidade) {
+            throw new IllegalStateException("Indisponível no período: no máximo " + Math.max(0, livre) + " unidades livres.");
+        }
+
+        Reserva reserva = new Reserva();
+        reserva.setItem(entityManager.find(Item.class, itemId));
+        reserva.setQuantidade(quantidade);
+        reserva.setDataInicio(inicio);
+        reserva.setDataFim(fim);
+        reserva.setSolicitante(solicitante);
+        reserva.setStatus(Reserva.ATIVA);
+        reserva.setDataRegistro(LocalDateTime.now());
+        reservaRepository.save(reserva);
+        previsao.aplicarReserva(reserva, 1);
+        previsao.ajustarReservas(1);
+        eventoAlteracaoService.publicar(EventoAlteracaoService.RESERVA, reserva.getId(), "CRIACAO");
+        return reserva;
+    }
+
+    // Trava a previsão do item até o commit da transação chamadora, que tem de ser READ_COMMITTED para o
+    // índice refeito aqui enxergar tudo o que foi confirmado até a trava. O modo exclusivo (criar, cancelar
+    // ou atender reserva) trava a linha do item para escrita; retiradas e devoluções a travam compartilhada,
+    // então num item sem reservas correm em paralelo e só esperam por quem mexe em reservas. Com reservas
+    // ativas, a linha de previsao_item serializa quem altera a previsão, e o índice em cache só é refeito
+    // se não reflete a versão dela.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public AlteracaoPrevisao travarPrevisao(Long itemId, boolean exclusiva) {
+        Integer isolamento = TransactionSynchronizationManager.getCurrentTransactionIsolationLevel();
+        if (isolamento == null || isolamento != Connection.TRANSACTION_READ_COMMITTED) {
+            throw new IllegalStateException("A previsão só pode ser travada numa transação READ_COMMITTED.");
+        }
+        Item item = entityManager.find(Item.class, itemId);
+        if (item == null) {
+            throw new NoSuchElementException("Item não encontrado.");
+        }
+        entityManager.refresh(item, exclusiva ? LockModeType.PESSIMISTIC_WRITE : LockModeType.PESSIMISTIC_READ);
+        Integer reservasAtivas = item.getReservasAtivas();
+        boolean semReservas = Integer.valueOf(0).equals(reservasAtivas);
+        if (semReservas && !exclusiva) {
+            return new AlteracaoPrevisao(itemId, false, null, reservasAtivas);
+        }
+
+        PrevisaoItem previsao = travarLinhaPrevisao(itemId);
+        long versao = previsao.getVersao();
+        previsao.setVersao(versao + 1);
+
+        // Sem reservas, retiradas e devoluções não passam pela linha de previsão, então um índice
+        // do item nesse estado pode não ter visto alguma delas.
+        IndiceItem indice = indices.get(itemId);
+        if (indice != null && indice.versao == versao && indice.base.equals(LocalDate.now()) && !semReservas) {
+            indice.capacidade = somarCapacidade(itemId);
+        } else {
+            indice = construirIndice(itemId);
+        }
+        indice.versao = versao + 1;
+        indices.put(itemId, indice);
+
+        AlteracaoPrevisao alteracao = new AlteracaoPrevisao(itemId, exclusiva, indice, reservasAtivas);
+        IndiceItem travado = indice;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Desfeita, o que já entrou no índice não vale; sem reservas, o índice deixa de ser mantido.
+                if (status != STATUS_COMMITTED || Integer.valueOf(0).equals(alteracao.reservasAtivas)) {
+                    indices.remove(itemId, travado);
+                }
+            }
+        });
+        return alteracao;
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Optional<Reserva> cancelarReserva(Long reservaId) {
+        Optional<Reserva> reservaOpt = reservaRepository.findById(reservaId)
+            .filter(r -> Reserva.ATIVA.equals(r.getStatus()));
+        if (reservaOpt.isEmpty()) {
+            return reservaOpt;
+        }
+        AlteracaoPrevisao previsao = travarPrevisao(reservaOpt.get().getItem().getId(), true);
+        return encerrar(previsao, reservaOpt.get(), Reserva.CANCELADA);
+    }
+
+    // Chamado pela retirada que consome a reserva, antes de gravar a retirada: as unidades da reserva
+    // voltam para a previsão e a retirada é conferida contra o que sobra. Vazio se a reserva não está
+    // ativa ou é de outro item.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<Reserva> atenderReserva(AlteracaoPrevisao previsao, Long reservaId) {
+        return reservaRepository.findById(reservaId)
+            .filter(r -> previsao.itemId.equals(r.getItem().getId()))
+            .flatMap(r -> encerrar(previsao, r, Reserva.ATENDIDA));
+    }
+
+    public Optional<Reserva> buscarReserva(Long reservaId) {
+        return reservaRepository.findById(reservaId);
+    }
+
+    private Optional<Reserva> encerrar(AlteracaoPrevisao previsao, Reserva reserva, String novoStatus) {
+        // Relida sob a trava: outra transação pode ter encerrado a reserva entre a busca e a trava.
+        entityManager.refresh(reserva);
+        if (!Reserva.ATIVA.equals(reserva.getStatus())) {
+            return Optional.empty();
+        }
+        reserva.setStatus(novoStatus);
+        reservaRepository.save(reserva);
+        previsao.aplicarReserva(reserva, -1);
+        previsao.ajustarReservas(-1);
+        eventoAlteracaoService.publicar(EventoAlteracaoService.RESERVA, reserva.getId(), "ATUALIZACAO");
+        return Optional.of(reserva);
+    }
+
+    // Linha que não existe é criada à parte (só acontece uma vez por item); a trava vem depois.
+    private PrevisaoItem travarLinhaPrevisao(Long itemId) {
+        if (!previsaoItemRepository.existsById(itemId)) {
+            try {
+                novaTransacao.executeWithoutResult(status -> previsaoItemRepository.inserir(itemId));
+            } catch (DataIntegrityViolationException e) {
+                // Criada em paralelo por outra transação.
+            }
+        }
+        return previsaoItemRepository.findComTravaByItemId(itemId).orElseThrow();
+    }
+
+    public void removerPrevisao(Long itemId) {
+        previsaoItemRepository.deleteById(itemId);
+    }
+
+    public List<Reserva> listarAtivas(Long itemId) {
+        return reservaRepository.findByItem_IdAndStatusOrderByDataInicioAsc(itemId, Reserva.ATIVA);
+    }
+
+    // Alterações desta instância num item com reservas já entraram no índice, que continua valendo;
+    // de um ajuste de estoque falta só a capacidade. As demais invalidam o índice do item.
+    @EventListener
+    public void aoAlterar(AlteracaoEvent evento) {
+        if (evento.entidadeId() == null) {
+            return;
+        }
+        boolean propria = instancia.getId().equals(evento.origem());
+        if (evento.isDaEntidade(EventoAlteracaoService.ESTOQUE)) {
+            Long itemId = evento.entidadeId();
+            IndiceItem indice = indices.get(itemId);
+            if (propria && indice != null && indice.versao != SEM_VERSAO) {
+                indice.capacidade = somarCapacidade(itemId);
+            } else {
+                invalidar(itemId);
+            }
+        } else if (evento.isDaEntidade(EventoAlteracaoService.ITEM)) {
+            invalidar(evento.entidadeId());
+        } else if (evento.isDaEntidade(EventoAlteracaoService.RESERVA)) {
+            reservaRepository.findById(evento.entidadeId()).map(r -> r.getItem().getId()).ifPresent(itemId -> {
+                IndiceItem indice = indices.get(itemId);
+                if (!propria || indice == null || indice.versao == SEM_VERSAO) {
+                    invalidar(itemId);
+                }
+            });
+        }
+    }
+
+    private void invalidar(Long itemId) {
+        Set<Long> emCarga = invalidadosDuranteCarga;
+        if (emCarga != null) {
+            emCarga.add(itemId);
+        }
+        indices.remove(itemId);
+    }
+
+    // Carga inicial em páginas por id (keyset), sem trazer todas as movimentações de uma vez.
+    // Itens sem nada em aberto não ganham árvore agora; são montados na primeira consulta.
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarIndices() {
+        invalidadosDuranteCarga = ConcurrentHashMap.newKeySet();
+        LocalDate hoje = LocalDate.now();
+        Map<Long, ArvoreDisponibilidade> arvores = new HashMap<>();
+
+        try {
+            long ultimoId = 0;
+            List<Movimentacao> movimentacoes;
+            do {
+                movimentacoes = movimentacaoRepository.findByDataDevolucaoIsNullAndIdGreaterThanOrderByIdAsc(ultimoId, PageRequest.of(0, loteCarga));
+                for (Movimentacao mov : movimentacoes) {
+                    ultimoId = mov.getId();
+                    if (mov.getItem() != null) {
+                        somarMovimentacao(arvores.computeIfAbsent(mov.getItem().getId(), id -> new ArvoreDisponibilidade(horizonteDias)), hoje, mov, mov.getQuantidade());
+                    }
+                }
+            } while (movimentacoes.size() == loteCarga);
+
+            ultimoId = 0;
+            List<Reserva> reservas;
+            do {
+                reservas = reservaRepository.findByStatusAndIdGreaterThanOrderByIdAsc(Reserva.ATIVA, ultimoId, PageRequest.of(0, loteCarga));
+                for (Reserva reserva : reservas) {
+                    ultimoId = reserva.getId();
+                    somar(arvores.computeIfAbsent(reserva.getItem().getId(), id -> new ArvoreDisponibilidade(horizonteDias)),
+                          hoje, reserva.getDataInicio(), reserva.getDataFim(), reserva.getQuantidade());
+                }
+            } while (reservas.size() == loteCarga);
+
+            for (Object[] soma : estoqueRepository.somarTodosPorItem()) {
+                Long itemId = ((Number) soma[0]).longValue();
+                ArvoreDisponibilidade arvore = arvores.get(itemId);
+                if (arvore != null && !invalidadosDuranteCarga.contains(itemId)) {
+                    indices.putIfAbsent(itemId, new IndiceItem(hoje, ((Number) soma[1]).intValue(), arvore));
+                }
+            }
+            System.out.println("--- Índice de reservas carregado: " + arvores.size() + " itens com uso previsto ---");
+        } finally {
+            invalidadosDuranteCarga = null;
+        }
+    }
+
+    // compute segura a entrada do item durante a montagem: uma invalidação concorrente espera e
+    // remove o índice recém-montado, em vez de a montagem guardar por cima dela um índice velho.
+    private IndiceItem obterIndice(Long itemId) {
+        LocalDate hoje = LocalDate.now();
+        return indices.compute(itemId, (id, atual) ->
+            // Na virada do dia a base muda e o índice do item é refeito.
+            atual != null && atual.base.equals(hoje) ? atual : construirIndice(id));
+    }
+
+    private IndiceItem construirIndice(Long itemId) {
+        LocalDate hoje = LocalDate.now();
+        IndiceItem indice = new IndiceItem(hoje, somarCapacidade(itemId), new ArvoreDisponibilidade(horizonteDias));
+        for (Movimentacao mov : movimentacaoRepository.findByItem_IdAndDataDevolucaoIsNullOrderByDataRetiradaAsc(itemId)) {
+            somarMovimentacao(indice.arvore, hoje, mov, mov.getQuantidade());
+        }
+        for (Reserva reserva : reservaRepository.findByItem_IdAndStatusOrderByDataInicioAsc(itemId, Reserva.ATIVA)) {
+            somar(indice.arvore, hoje, reserva.getDataInicio(), reserva.getDataFim(), reserva.getQuantidade());
+        }
+        return indice;
+    }
+
+    private int somarCapacidade(Long itemId) {
+        List<Object[]> somas = estoqueRepository.somarPorItem(itemId);
+        return somas.isEmpty() ? 0 : ((Number) somas.get(0)[1]).intValue();
+    }
+
+    // Retirada sem prazo (CEDIDO) ocupa todo o horizonte; atrasada ocupa ao menos o dia de hoje.
+    private void somarMovimentacao(ArvoreDisponibilidade arvore, LocalDate base, Movimentacao mov, Integer quantidade) {
+        if (quantidade == null) {
+            return;
+        }
+        LocalDate inicio = mov.getDataRetirada() != null ? mov.getDataRetirada().toLocalDate() : base;
+        LocalDate fim = mov.getDataPrevistaDevolucao() == null
+            ? base.plusDays(horizonteDias - 1L)
+            : (mov.getDataPrevistaDevolucao().isBefore(base) ? base : mov.getDataPrevistaDevolucao());
+        somar(arvore, base, inicio, fim, quantidade);
+    }
+
+    private void somar(ArvoreDisponibilidade arvore, LocalDate base, LocalDate inicio, LocalDate fim, int quantidade) {
+        int de = (int) Math.max(0, ChronoUnit.DAYS.between(base, inicio));
+        int ate = (int) Math.min(arvore.getTamanho() - 1L, ChronoUnit.DAYS.between(base, fim));
+        arvore.somar(de, ate, quantidade);
+    }
+
+    private void validarPeriodo(LocalDate inicio, LocalDate fim) {
+        LocalDate hoje = LocalDate.now();
+        if (inicio == null || fim == null || fim.isBefore(inicio)) {
+            throw new IllegalArgumentException("Período inválido: informe início e fim, com fim >= início.");
+        }
+        if (inicio.isBefore(hoje)) {
+            throw new IllegalArgumentException("O período deve começar hoje ou depois.");
+        }
+        if (!fim.isBefore(hoje.plusDays(horizonteDias))) {
+            throw new IllegalArgumentException("O período deve terminar em até " + horizonteDias + " dias.");
+        }
+    }
+}
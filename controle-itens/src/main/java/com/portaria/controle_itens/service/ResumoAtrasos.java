@@ -0,0 +1,24 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.model.NotificacaoOutbox;
+
+import java.util.List;
+
+// Todos os atrasos pendentes de um funcionário, enviados juntos numa única mensagem.
+public record ResumoAtrasos(String funcionario, List<NotificacaoOutbox> atrasos) {
+
+    public String assunto() {
+        return "Itens em atraso: " + funcionario + " (" + atrasos.size() + ")";
+    }
+
+    public String texto() {
+        StringBuilder texto = new StringBuilder();
+        texto.append("Funcionário: ").append(funcionario).append('\n');
+        texto.append("Itens com devolução em atraso:\n");
+        for (NotificacaoOutbox atraso : atrasos) {
+            texto.append(String.format("  - %s (id=%s): %s unidade(s), prazo %s%n",
+                atraso.getItemNome(), atraso.getItemId(), atraso.getQuantidade(), atraso.getDataPrevistaDevolucao()));
+        }
+        return texto.toString();
+    }
+}
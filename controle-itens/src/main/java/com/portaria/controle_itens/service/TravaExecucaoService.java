@@ -0,0 +1,77 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.config.IdentificadorInstancia;
+import com.portaria.controle_itens.repository.TravaExecucaoRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class TravaExecucaoService {
+
+    @Autowired
+    private TravaExecucaoRepository travaExecucaoRepository;
+
+    @Autowired
+    private IdentificadorInstancia instancia;
+
+    @Value("${app.trava.duracao-segundos:30}")
+    private long duracaoSegundos;
+
+    private final Set<String> travasAdquiridas = ConcurrentHashMap.newKeySet();
+
+    public boolean tentarAdquirir(String nome) {
+        return tentarAdquirir(nome, Duration.ofSeconds(duracaoSegundos));
+    }
+
+    // A trava é um lease: quem já é dono renova a cada execução e só perde a vez
+    // se parar de renovar (queda da instância) por mais tempo que a duração configurada.
+    public boolean tentarAdquirir(String nome, Duration duracao) {
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime expiraEm = agora.plus(duracao);
+        boolean adquirida;
+        try {
+            if (travaExecucaoRepository.renovarOuAssumir(nome, instancia.getId(), expiraEm, agora) > 0) {
+                adquirida = true;
+            } else if (travaExecucaoRepository.existsById(nome)) {
+                // Trava válida de outra instância: caso normal de quem não é dono, sem tentar o INSERT.
+                adquirida = false;
+            } else {
+                adquirida = travaExecucaoRepository.inserir(nome, instancia.getId(), expiraEm) > 0;
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância criou a trava no mesmo instante.
+            adquirida = false;
+        }
+
+        if (adquirida) {
+            travasAdquiridas.add(nome);
+        } else {
+            travasAdquiridas.remove(nome);
+        }
+        return adquirida;
+    }
+
+    public void liberar(String nome) {
+        travaExecucaoRepository.liberar(nome, instancia.getId(), LocalDateTime.now());
+        travasAdquiridas.remove(nome);
+    }
+
+    @PreDestroy
+    public void liberarTodas() {
+        for (String nome : travasAdquiridas) {
+            try {
+                liberar(nome);
+            } catch (Exception e) {
+                System.out.println("Falha ao liberar trava " + nome + " no encerramento: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -65,6 +65,9 @@ async function fetchJsonUrl(url, opts = {}) {
     const err = new Error(`${res.status} ${res.statusText} — ${body || '(sem corpo)'}`);
     err.status = res.status;
     err.body = body;
+    // 503 do controle de admissão: o servidor informa em quantos segundos tentar de novo.
+    const retryAfter = parseInt(res.headers.get('Retry-After'), 10);
+    if (!Number.isNaN(retryAfter)) err.retryAfter = retryAfter;
     throw err;
   }
 
@@ -147,13 +150,27 @@ let currentDevItem = null;
 let deleteTargetId = null;
 
 /* ---------------- Data loaders ---------------- */
+const STOCK_RETRY_ATTEMPTS = 2;
+const sleep = ms => new Promise(resolve => setTimeout(resolve, ms));
+
+/* Retorna null quando o estoque não pôde ser lido (servidor ocupado ou erro), para a tela
+   mostrar "indisponível" em vez de um saldo zerado que não é real. */
 async function fetchStockForItem(itemId) {
-  try {
-    const data = await apiGet(`movimentacao/estoque/${encode(itemId)}`);
-    return data || { quantidadeTotal: 0, quantidadeDisponivel: 0 };
-  } catch (err) {
-    console.warn('[fetchStockForItem] failed for', itemId, err);
-    return { quantidadeTotal: 0, quantidadeDisponivel: 0 };
+  for (let tentativa = 0; ; tentativa++) {
+    try {
+      const data = await apiGet(`movimentacao/estoque/${encode(itemId)}`);
+      return data || { quantidadeTotal: 0, quantidadeDisponivel: 0 };
+    } catch (err) {
+      if (err.status === 404) return { quantidadeTotal: 0, quantidadeDisponivel: 0 };
+      if (err.status === 503 && tentativa < STOCK_RETRY_ATTEMPTS) {
+        // Espera o Retry-After com um pouco de variação, para os pedidos de todos os itens não voltarem juntos.
+        const espera = (err.retryAfter ?? 1) * 1000 * (1 + Math.random());
+        await sleep(espera);
+        continue;
+      }
+      console.warn('[fetchStockForItem] failed for', itemId, err);
+      return null;
+    }
   }
 }
 
@@ -178,6 +195,9 @@ async function carregarItens(filter = '') {
       const estoque = await fetchStockForItem(it.id);
       return { item: it, estoque };
     }));
+    if (withStock.some(({ estoque }) => estoque === null)) {
+      showToast('Servidor ocupado: parte dos saldos não foi carregada. Atualize em instantes.', 'error');
+    }
 
     const filtered = withStock.filter(({ item }) =>
       item.nome.toLowerCase().includes(String(filter).toLowerCase())
@@ -196,8 +216,8 @@ async function carregarItens(filter = '') {
       row.querySelector('.cell-name').textContent = item.nome || '-';
       row.querySelector('.cell-patrimonio').textContent = item.patrimonio || '-';
       row.querySelector('.cell-desc').innerHTML = formatDescription(item.descricao || '-');
-      row.querySelector('.cell-available').textContent = estoque.quantidadeDisponivel ?? 0;
-      row.querySelector('.cell-total').textContent = estoque.quantidadeTotal ?? 0;
+      row.querySelector('.cell-available').textContent = estoque ? (estoque.quantidadeDisponivel ?? 0) : 'indisponível';
+      row.querySelector('.cell-total').textContent = estoque ? (estoque.quantidadeTotal ?? 0) : 'indisponível';
 
       const actions = row.querySelector('.cell-actions');
       actions.innerHTML = '';
@@ -0,0 +1,143 @@
+package com.portaria.controle_itens.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitadorAdaptativoTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long SEGUNDO = 1_000_000_000L;
+    private static final int AMOSTRAS = 10;
+
+    private final AtomicLong relogio = new AtomicLong();
+
+    private LimitadorAdaptativo novo(int limiteInicial) {
+        return new LimitadorAdaptativo("GET /api/teste", limiteInicial, 2, 20, 2.0, 2000, 0.5, AMOSTRAS, relogio::get);
+    }
+
+    // Uma janela de AMOSTRAS respostas, com "simultaneas" requisições em andamento ao mesmo tempo.
+    private void janela(LimitadorAdaptativo limitador, int simultaneas, long... latenciasMs) {
+        int i = 0;
+        while (i < latenciasMs.length) {
+            int rodada = Math.min(simultaneas, latenciasMs.length - i);
+            for (int j = 0; j < rodada; j++) {
+                assertTrue(limitador.tentarEntrar(1.0), "deveria caber no limite");
+            }
+            for (int j = 0; j < rodada; j++) {
+                limitador.sair(latenciasMs[i++] * MS, false);
+            }
+        }
+    }
+
+    private void janela(LimitadorAdaptativo limitador, int simultaneas, long latenciaMs) {
+        long[] latencias = new long[AMOSTRAS];
+        Arrays.fill(latencias, latenciaMs);
+        janela(limitador, simultaneas, latencias);
+    }
+
+    @Test
+    void recusaAcimaDoLimiteEContaRejeitadas() {
+        LimitadorAdaptativo limitador = novo(4);
+
+        assertTrue(limitador.tentarEntrar(0.5));
+        assertTrue(limitador.tentarEntrar(0.5));
+        assertFalse(limitador.tentarEntrar(0.5));
+        assertTrue(limitador.tentarEntrar(1.0));
+        assertTrue(limitador.tentarEntrar(1.0));
+        assertFalse(limitador.tentarEntrar(1.0));
+
+        assertEquals(4, limitador.getEmAndamento());
+        assertEquals(2, limitador.getRejeitadas());
+    }
+
+    @Test
+    void cresceUmPorJanelaQuandoOLimiteEstaEmUso() {
+        LimitadorAdaptativo limitador = novo(10);
+
+        janela(limitador, 10, 10);
+        assertEquals(11, limitador.getLimite());
+        janela(limitador, 11, 10);
+        assertEquals(12, limitador.getLimite());
+
+        // Com pouco uso não há motivo para crescer.
+        janela(limitador, 1, 10);
+        assertEquals(12, limitador.getLimite());
+    }
+
+    @Test
+    void naoAjustaAntesDeFecharAJanela() {
+        LimitadorAdaptativo limitador = novo(10);
+        janela(limitador, 1, 10);
+
+        janela(limitador, 1, 500, 500, 500, 500, 500, 500, 500, 500, 500);
+        assertEquals(10, limitador.getLimite());
+    }
+
+    @Test
+    void respostaLentaIsoladaNaoReduzOLimite() {
+        LimitadorAdaptativo limitador = novo(10);
+        janela(limitador, 1, 10);
+
+        janela(limitador, 1, 10, 10, 10, 10, 10, 10, 10, 10, 10, 1500);
+        assertEquals(10, limitador.getLimite());
+    }
+
+    @Test
+    void reduzQuandoAMedianaPassaDaToleranciaAteOMinimo() {
+        LimitadorAdaptativo limitador = novo(10);
+        janela(limitador, 1, 10);
+
+        // Mediana 50 ms: suavizada vai a 30 ms, acima de 2 x 10 ms.
+        janela(limitador, 1, 50);
+        assertEquals(5, limitador.getLimite());
+        janela(limitador, 1, 50);
+        assertEquals(2, limitador.getLimite());
+        janela(limitador, 1, 50);
+        assertEquals(2, limitador.getLimite());
+    }
+
+    @Test
+    void reduzAcimaDaLatenciaMaxima() {
+        LimitadorAdaptativo limitador = novo(10);
+
+        // Sem referência anterior, só o teto de 2 s vale.
+        janela(limitador, 1, 2500);
+        assertEquals(5, limitador.getLimite());
+    }
+
+    @Test
+    void reduzComFalhasNaJanela() {
+        LimitadorAdaptativo limitador = novo(10);
+        janela(limitador, 1, 10);
+
+        for (int i = 0; i < AMOSTRAS; i++) {
+            assertTrue(limitador.tentarEntrar(1.0));
+            limitador.sair(10 * MS, i < 2);
+        }
+        assertEquals(5, limitador.getLimite());
+    }
+
+    @Test
+    void referenciaAcompanhaMudancaDuradouraDeLatencia() {
+        LimitadorAdaptativo limitador = novo(10);
+        janela(limitador, 1, 10);
+        for (int i = 0; i < 5; i++) {
+            janela(limitador, 1, 30);
+        }
+        assertEquals(2, limitador.getLimite());
+
+        // Na virada da janela de 30 s a referência ainda é a mínima anterior (10 ms).
+        relogio.addAndGet(31 * SEGUNDO);
+        janela(limitador, 2, 30);
+        assertEquals(2, limitador.getLimite());
+
+        // Na seguinte, 30 ms passa a ser a referência e o limite volta a crescer.
+        relogio.addAndGet(31 * SEGUNDO);
+        janela(limitador, 2, 30);
+        assertEquals(3, limitador.getLimite());
+    }
+}
@@ -0,0 +1,138 @@
+package com.portaria.controle_itens.config;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Primário e réplica são dois bancos H2 independentes. A "replicação" é feita pelo teste,
+// copiando só o heartbeat: assim um item que existe apenas na réplica mostra de onde veio a leitura.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:primario_teste;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.show-sql=false",
+    "app.datasource.replica.enabled=true",
+    "app.datasource.replica.url=" + ReplicaLeituraTest.URL_REPLICA,
+    "app.datasource.replica.username=sa",
+    "app.datasource.replica.password=",
+    "app.datasource.replica.driver-class-name=org.h2.Driver",
+    "app.datasource.replica.atraso-maximo-ms=" + ReplicaLeituraTest.ATRASO_MAXIMO_MS,
+    "app.datasource.replica.janela-leitura-propria-ms=5000",
+    "app.instancia.id=no-replica-teste",
+    "app.agendamento.habilitado=false"
+})
+class ReplicaLeituraTest {
+
+    static final String URL_REPLICA = "jdbc:h2:mem:replica_teste;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final long ATRASO_MAXIMO_MS = 500;
+
+    private static final String SO_NA_REPLICA = "item-so-na-replica";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", ""));
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private MonitorReplica monitorReplica;
+
+    @Autowired
+    @Qualifier("primarioDataSource")
+    private DataSource primarioDataSource;
+
+    @BeforeAll
+    static void prepararReplica() {
+        replica.execute("CREATE TABLE IF NOT EXISTS item (id BIGINT PRIMARY KEY, nome VARCHAR(255) NOT NULL, " +
+                        "patrimonio VARCHAR(255), descricao VARCHAR(1000))");
+        replica.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat_instancia (instancia VARCHAR(255) PRIMARY KEY, " +
+                        "atualizado_em BIGINT NOT NULL)");
+        replica.update("DELETE FROM item");
+        replica.update("INSERT INTO item (id, nome) VALUES (1, ?)", SO_NA_REPLICA);
+    }
+
+    @Test
+    void leituraSomenteLeituraDeGetVaiParaReplica() throws Exception {
+        sincronizarReplica();
+        assertTrue(monitorReplica.isDisponivel());
+
+        assertTrue(get("/api/itens", null).body().contains(SO_NA_REPLICA));
+    }
+
+    @Test
+    void escritaEJanelaDoCookieFicamNoPrimario() throws Exception {
+        sincronizarReplica();
+
+        HttpResponse<String> criacao = http.send(HttpRequest.newBuilder(uri("/api/itens"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"nome\":\"criado-no-primario\",\"quantidadeTotal\":1}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, criacao.statusCode());
+
+        JdbcTemplate primario = new JdbcTemplate(primarioDataSource);
+        assertEquals(1, primario.queryForObject("SELECT COUNT(*) FROM item WHERE nome = 'criado-no-primario'", Integer.class));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM item WHERE nome = 'criado-no-primario'", Integer.class));
+
+        String cookie = criacao.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+        assertTrue(cookie.startsWith(LeituraConsistenteFilter.COOKIE_ULTIMA_ESCRITA + "="));
+
+        // Dentro da janela, o mesmo cliente lê do primário e vê a própria escrita.
+        sincronizarReplica();
+        String comCookie = get("/api/itens", cookie).body();
+        assertTrue(comCookie.contains("criado-no-primario"));
+        assertFalse(comCookie.contains(SO_NA_REPLICA));
+
+        // Outro cliente, sem o cookie, continua na réplica.
+        assertTrue(get("/api/itens", null).body().contains(SO_NA_REPLICA));
+    }
+
+    @Test
+    void atrasoAcimaDoLimiteMandaLeiturasParaOPrimario() throws Exception {
+        sincronizarReplica();
+        assertTrue(monitorReplica.isDisponivel());
+
+        // A réplica para de receber o heartbeat.
+        Thread.sleep(ATRASO_MAXIMO_MS + 300);
+        monitorReplica.verificar();
+        assertFalse(monitorReplica.isDisponivel());
+
+        assertFalse(get("/api/itens", null).body().contains(SO_NA_REPLICA));
+    }
+
+    // Grava o heartbeat no primário, "replica" a linha e mede de novo: atraso de poucos ms.
+    private void sincronizarReplica() {
+        monitorReplica.verificar();
+        Long valor = new JdbcTemplate(primarioDataSource).queryForObject(
+            "SELECT atualizado_em FROM replica_heartbeat_instancia WHERE instancia = 'no-replica-teste'", Long.class);
+        replica.update("DELETE FROM replica_heartbeat_instancia WHERE instancia = 'no-replica-teste'");
+        replica.update("INSERT INTO replica_heartbeat_instancia (instancia, atualizado_em) VALUES ('no-replica-teste', ?)", valor);
+        monitorReplica.verificar();
+    }
+
+    private HttpResponse<String> get(String caminho, String cookie) throws Exception {
+        HttpRequest.Builder requisicao = HttpRequest.newBuilder(uri(caminho)).GET();
+        if (cookie != null) {
+            requisicao.header("Cookie", cookie);
+        }
+        return http.send(requisicao.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String caminho) {
+        return URI.create("http://localhost:" + porta + caminho);
+    }
+}
@@ -0,0 +1,81 @@
+package com.portaria.controle_itens.repository;
+
+import com.portaria.controle_itens.model.AuditoriaLog;
+import com.portaria.controle_itens.model.AuditoriaResumo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Paginação por cursor sobre registros com a mesma data: o id desempata, nenhuma página repete ou pula
+// registro, "de" entra e "ate" fica de fora.
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:auditoria_teste;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.show-sql=false",
+    "app.agendamento.habilitado=false"
+})
+class AuditoriaLogRepositoryTest {
+
+    private static final String ACAO = "TESTE_EMPATE";
+
+    @Autowired
+    private AuditoriaLogRepository repository;
+
+    @Test
+    void paginaAtravesDeDatasIguaisPeloId() {
+        LocalDateTime de = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime ate = de.plusDays(1);
+        LocalDateTime empate = de.plusHours(10);
+
+        List<Long> esperados = new ArrayList<>();
+        esperados.add(salvar(de.plusHours(12)));
+        for (int i = 0; i < 5; i++) {
+            esperados.add(salvar(empate));
+        }
+        esperados.add(salvar(de));
+        // Fora do intervalo: exatamente em "ate" e logo antes de "de".
+        salvar(ate);
+        salvar(de.minusNanos(1000));
+
+        List<Long> lidos = new ArrayList<>();
+        LocalDateTime cursorData = LocalDateTime.of(9999, 12, 31, 0, 0);
+        Long cursorId = Long.MAX_VALUE;
+        int paginas = 0;
+        while (true) {
+            List<AuditoriaResumo> pagina = repository.linhaDoTempoPorAcao(ACAO, de, ate, cursorData, cursorId, PageRequest.of(0, 2));
+            if (pagina.isEmpty()) {
+                break;
+            }
+            paginas++;
+            for (AuditoriaResumo registro : pagina) {
+                lidos.add(registro.id());
+            }
+            AuditoriaResumo ultimo = pagina.get(pagina.size() - 1);
+            cursorData = ultimo.dataRegistro();
+            cursorId = ultimo.id();
+        }
+
+        // Mais recente primeiro; no empate, o id maior primeiro.
+        List<Long> ordemEsperada = new ArrayList<>();
+        ordemEsperada.add(esperados.get(0));
+        for (int i = 5; i >= 1; i--) {
+            ordemEsperada.add(esperados.get(i));
+        }
+        ordemEsperada.add(esperados.get(6));
+        assertEquals(ordemEsperada, lidos);
+        assertEquals(4, paginas);
+    }
+
+    private Long salvar(LocalDateTime dataRegistro) {
+        return repository.save(new AuditoriaLog(null, ACAO, 1L, "teste", dataRegistro)).getId();
+    }
+}
@@ -0,0 +1,114 @@
+package com.portaria.controle_itens.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArvoreDisponibilidadeTest {
+
+    @Test
+    void somaEmIntervaloEMaximo() {
+        ArvoreDisponibilidade arvore = new ArvoreDisponibilidade(10);
+        arvore.somar(2, 5, 3);
+        arvore.somar(4, 8, 2);
+
+        assertEquals(0, arvore.maximo(0, 1));
+        assertEquals(3, arvore.maximo(2, 3));
+        assertEquals(5, arvore.maximo(0, 9));
+        assertEquals(2, arvore.maximo(6, 9));
+        assertEquals(0, arvore.maximo(5, 4));
+    }
+
+    @Test
+    void primeiroAcimaDesceAteODiaMaisCedo() {
+        ArvoreDisponibilidade arvore = new ArvoreDisponibilidade(16);
+        arvore.somar(3, 3, 5);
+        arvore.somar(9, 12, 7);
+
+        assertEquals(3, arvore.primeiroAcima(0, 15, 4));
+        assertEquals(9, arvore.primeiroAcima(4, 15, 4));
+        assertEquals(9, arvore.primeiroAcima(0, 15, 5));
+        assertEquals(-1, arvore.primeiroAcima(0, 15, 7));
+        assertEquals(-1, arvore.primeiroAcima(4, 8, 0));
+    }
+
+    @Test
+    void primeiraJanelaPulaParaDepoisDoBloqueio() {
+        ArvoreDisponibilidade arvore = new ArvoreDisponibilidade(20);
+        arvore.somar(2, 2, 1);
+        arvore.somar(6, 7, 1);
+
+        // Limite 0: precisa de dias sem nada comprometido.
+        assertEquals(0, arvore.primeiraJanela(0, 2, 0));
+        assertEquals(3, arvore.primeiraJanela(0, 3, 0));
+        assertEquals(8, arvore.primeiraJanela(0, 4, 0));
+        assertEquals(8, arvore.primeiraJanela(6, 1, 0));
+        // Janela que não cabe até o fim do horizonte.
+        assertEquals(-1, arvore.primeiraJanela(8, 13, 0));
+        assertEquals(8, arvore.primeiraJanela(8, 12, 0));
+        // Limite acima de tudo: qualquer início serve.
+        assertEquals(5, arvore.primeiraJanela(5, 10, 1));
+    }
+
+    @Test
+    void confereComVetorSimplesEmOperacoesAleatorias() {
+        Random aleatorio = new Random(42);
+        int tamanho = 97;
+        ArvoreDisponibilidade arvore = new ArvoreDisponibilidade(tamanho);
+        int[] dias = new int[tamanho];
+
+        for (int i = 0; i < 2000; i++) {
+            int a = aleatorio.nextInt(tamanho);
+            int b = aleatorio.nextInt(tamanho);
+            int inicio = Math.min(a, b);
+            int fim = Math.max(a, b);
+
+            switch (aleatorio.nextInt(4)) {
+                case 0 -> {
+                    int valor = aleatorio.nextInt(7) - 3;
+                    arvore.somar(inicio, fim, valor);
+                    for (int d = inicio; d <= fim; d++) {
+                        dias[d] += valor;
+                    }
+                }
+                case 1 -> {
+                    int esperado = Integer.MIN_VALUE;
+                    for (int d = inicio; d <= fim; d++) {
+                        esperado = Math.max(esperado, dias[d]);
+                    }
+                    assertEquals(esperado, arvore.maximo(inicio, fim));
+                }
+                case 2 -> {
+                    int limite = aleatorio.nextInt(9) - 4;
+                    int esperado = -1;
+                    for (int d = inicio; d <= fim && esperado == -1; d++) {
+                        if (dias[d] > limite) {
+                            esperado = d;
+                        }
+                    }
+                    assertEquals(esperado, arvore.primeiroAcima(inicio, fim, limite));
+                }
+                default -> {
+                    int janela = 1 + aleatorio.nextInt(10);
+                    int limite = aleatorio.nextInt(9) - 4;
+                    assertEquals(primeiraJanelaSimples(dias, inicio, janela, limite), arvore.primeiraJanela(inicio, janela, limite));
+                }
+            }
+        }
+    }
+
+    private static int primeiraJanelaSimples(int[] dias, int aPartirDe, int janela, int limite) {
+        for (int inicio = aPartirDe; inicio + janela - 1 < dias.length; inicio++) {
+            boolean livre = true;
+            for (int d = inicio; d < inicio + janela && livre; d++) {
+                livre = dias[d] <= limite;
+            }
+            if (livre) {
+                return inicio;
+            }
+        }
+        return -1;
+    }
+}
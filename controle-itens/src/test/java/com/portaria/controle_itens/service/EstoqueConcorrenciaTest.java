@@ -0,0 +1,210 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.ControleItensApplication;
+import com.portaria.controle_itens.controller.ItemController;
+import com.portaria.controle_itens.controller.MovimentacaoController;
+import com.portaria.controle_itens.model.Estoque;
+import com.portaria.controle_itens.model.EstoqueConsolidado;
+import com.portaria.controle_itens.model.Item;
+import com.portaria.controle_itens.model.Local;
+import com.portaria.controle_itens.repository.EstoqueConsolidadoRepository;
+import com.portaria.controle_itens.repository.EstoqueRepository;
+import com.portaria.controle_itens.repository.ItemRepository;
+import com.portaria.controle_itens.repository.LocalRepository;
+import com.portaria.controle_itens.repository.MovimentacaoRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Retiradas e transferências concorrentes em duas instâncias sobre o mesmo H2: as partições por local
+// nunca ficam negativas, o total do item se conserva e a consolidação chega à soma das partições.
+class EstoqueConcorrenciaTest {
+
+    private static ConfigurableApplicationContext noA;
+    private static ConfigurableApplicationContext noB;
+
+    @BeforeAll
+    static void subir() {
+        noA = subir("no-a");
+        noB = subir("no-b");
+    }
+
+    @AfterAll
+    static void derrubar() {
+        if (noB != null) noB.close();
+        if (noA != null) noA.close();
+    }
+
+    private static ConfigurableApplicationContext subir(String id) {
+        return new SpringApplicationBuilder(ControleItensApplication.class).run(
+            "--server.port=0",
+            // A espera por trava do H2 (1 s por padrão) é curta para dezenas de retiradas no mesmo item.
+            "--spring.datasource.url=jdbc:h2:mem:estoque_concorrente;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=20000",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.jpa.hibernate.ddl-auto=update",
+            "--spring.jpa.show-sql=false",
+            "--app.instancia.id=" + id,
+            "--app.agendamento.habilitado=false",
+            "--app.admissao.habilitado=false");
+    }
+
+    @Test
+    void retiradasETransferenciasConcorrentesConservamOTotal() throws Exception {
+        int total = 20;
+        Long itemId = criarItem("Rádio", total);
+        Local principal = noA.getBean(EstoqueService.class).getLocalPadrao();
+        Local deposito = noA.getBean(LocalRepository.class).save(new Local(null, "DEPOSITO-" + itemId, "Teste"));
+
+        int retiradas = 30;
+        int transferencias = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<ResponseEntity<?>>> resultadosRetirada = new ArrayList<>();
+        List<Future<ResponseEntity<?>>> resultadosTransferencia = new ArrayList<>();
+        try {
+            for (int i = 0; i < retiradas; i++) {
+                MovimentacaoController controller = (i % 2 == 0 ? noA : noB).getBean(MovimentacaoController.class);
+                resultadosRetirada.add(executor.submit(() -> {
+                    largada.await();
+                    return controller.registrarRetirada(itemId, Map.of(
+                        "quantidade", 1, "tipo", "CEDIDO", "funcionarioSolicitante", "Teste"));
+                }));
+            }
+            for (int i = 0; i < transferencias; i++) {
+                MovimentacaoController controller = (i % 2 == 0 ? noB : noA).getBean(MovimentacaoController.class);
+                // Metade leva do principal para o depósito, metade traz de volta.
+                Local origem = i % 2 == 0 ? principal : deposito;
+                Local destino = i % 2 == 0 ? deposito : principal;
+                resultadosTransferencia.add(executor.submit(() -> {
+                    largada.await();
+                    return controller.registrarTransferencia(itemId, Map.of(
+                        "quantidade", 1, "origemId", origem.getId().intValue(), "destinoId", destino.getId().intValue()));
+                }));
+            }
+            largada.countDown();
+
+            int retiradasAceitas = 0;
+            for (Future<ResponseEntity<?>> resultado : resultadosRetirada) {
+                ResponseEntity<?> resposta = resultado.get(60, TimeUnit.SECONDS);
+                if (HttpStatus.CREATED.equals(resposta.getStatusCode())) {
+                    retiradasAceitas++;
+                } else {
+                    assertEquals(HttpStatus.BAD_REQUEST, resposta.getStatusCode());
+                }
+            }
+            for (Future<ResponseEntity<?>> resultado : resultadosTransferencia) {
+                HttpStatusCode status = resultado.get(60, TimeUnit.SECONDS).getStatusCode();
+                assertTrue(HttpStatus.OK.equals(status) || HttpStatus.BAD_REQUEST.equals(status), "status inesperado: " + status);
+            }
+
+            List<Estoque> particoes = noA.getBean(EstoqueRepository.class).findByItem_IdOrderByLocal_IdAsc(itemId);
+            int somaTotal = 0;
+            int somaDisponivel = 0;
+            for (Estoque particao : particoes) {
+                assertTrue(particao.getQuantidadeDisponivel() >= 0, "disponível negativo em " + particao.getLocal().getNome());
+                assertTrue(particao.getQuantidadeDisponivel() <= particao.getQuantidadeTotal());
+                somaTotal += particao.getQuantidadeTotal();
+                somaDisponivel += particao.getQuantidadeDisponivel();
+            }
+            assertEquals(total, somaTotal);
+            assertTrue(retiradasAceitas > 0 && retiradasAceitas <= total, "retiradas aceitas: " + retiradasAceitas);
+            assertEquals(total - retiradasAceitas, somaDisponivel);
+            assertEquals(retiradasAceitas, noA.getBean(MovimentacaoRepository.class)
+                .findByItem_IdAndDataDevolucaoIsNullOrderByDataRetiradaAsc(itemId).size());
+
+            // A consolidação (sempre em A, dona do lease neste teste) chega à soma das partições,
+            // sem depender de quando cada escrita confirmou.
+            noA.getBean(EstoqueService.class).consolidarEstoque();
+            EstoqueConsolidado consolidado = noB.getBean(EstoqueConsolidadoRepository.class).findById(itemId).orElseThrow();
+            assertEquals(somaTotal, consolidado.getQuantidadeTotal());
+            assertEquals(somaDisponivel, consolidado.getQuantidadeDisponivel());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void consolidacaoPegaEscritaQueNaoAtualizouOConsolidado() {
+        Long itemId = criarItem("Lanterna", 5);
+        EstoqueService estoqueService = noA.getBean(EstoqueService.class);
+        estoqueService.consolidarEstoque();
+        assertEquals(5, noA.getBean(EstoqueConsolidadoRepository.class).findById(itemId).orElseThrow().getQuantidadeDisponivel());
+
+        // Retirada gravada direto na partição, como uma transação que confirmou depois da última rodada.
+        EstoqueRepository estoqueRepository = noA.getBean(EstoqueRepository.class);
+        Estoque particao = estoqueRepository.findByItem_IdAndLocal_Id(itemId, estoqueService.getLocalPadrao().getId()).orElseThrow();
+        assertEquals(1, estoqueRepository.retirar(particao.getId(), 2, LocalDateTime.now().minusHours(1)));
+
+        estoqueService.consolidarEstoque();
+        assertEquals(3, noA.getBean(EstoqueConsolidadoRepository.class).findById(itemId).orElseThrow().getQuantidadeDisponivel());
+    }
+
+    @Test
+    void ajusteAbaixoDasUnidadesForaRetorna409EGuardaOSaldo() {
+        Long itemId = criarItem("Capacete", 4);
+        ResponseEntity<?> retirada = noA.getBean(MovimentacaoController.class).registrarRetirada(itemId, Map.of(
+            "quantidade", 3, "tipo", "CEDIDO", "funcionarioSolicitante", "Teste"));
+        assertEquals(HttpStatus.CREATED, retirada.getStatusCode());
+
+        ItemController itens = noB.getBean(ItemController.class);
+        assertEquals(HttpStatus.CONFLICT, itens.atualizarEstoqueTotal(itemId, Map.of("quantidadeTotal", 2)).getStatusCode());
+        assertEquals(HttpStatus.OK, itens.atualizarEstoqueTotal(itemId, Map.of("quantidadeTotal", 6)).getStatusCode());
+
+        Estoque particao = noA.getBean(EstoqueRepository.class)
+            .findByItem_IdAndLocal_Id(itemId, noA.getBean(EstoqueService.class).getLocalPadrao().getId()).orElseThrow();
+        assertEquals(6, particao.getQuantidadeTotal());
+        assertEquals(3, particao.getQuantidadeDisponivel());
+    }
+
+    @Test
+    void migracaoCopiaEstoqueAntigoEItemContinuaExcluivel() {
+        JdbcTemplate jdbc = noA.getBean(JdbcTemplate.class);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS estoque (id BIGINT AUTO_INCREMENT PRIMARY KEY, item_id BIGINT NOT NULL, " +
+                     "quantidade_total INT NOT NULL, quantidade_disponivel INT NOT NULL, " +
+                     "CONSTRAINT fk_estoque_antigo_item FOREIGN KEY (item_id) REFERENCES item(id))");
+        Item item = noA.getBean(ItemRepository.class).save(new Item("Escada", null, null));
+        jdbc.update("INSERT INTO estoque (item_id, quantidade_total, quantidade_disponivel) VALUES (?, 7, 5)", item.getId());
+
+        noA.getBean(MigracaoService.class).migrar();
+        // Rodar de novo não duplica.
+        noB.getBean(MigracaoService.class).migrar();
+
+        Estoque particao = noA.getBean(EstoqueRepository.class)
+            .findByItem_IdAndLocal_Id(item.getId(), noA.getBean(EstoqueService.class).getLocalPadrao().getId()).orElseThrow();
+        assertEquals(7, particao.getQuantidadeTotal());
+        assertEquals(5, particao.getQuantidadeDisponivel());
+        assertEquals(1, noA.getBean(EstoqueRepository.class).findByItem_IdOrderByLocal_IdAsc(item.getId()).size());
+
+        // Com a limpeza desligada a linha antiga fica, e a exclusão do item não pode esbarrar na chave estrangeira.
+        assertEquals(HttpStatus.NO_CONTENT, noB.getBean(ItemController.class).deletarItem(item.getId()).getStatusCode());
+        assertFalse(noA.getBean(ItemRepository.class).existsById(item.getId()));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM estoque WHERE item_id = ?", Integer.class, item.getId()));
+    }
+
+    private Long criarItem(String nome, int quantidade) {
+        ResponseEntity<?> resposta = noA.getBean(ItemController.class).criarItemEmVolume(Map.of(
+            "nome", nome, "quantidadeTotal", quantidade));
+        assertEquals(HttpStatus.CREATED, resposta.getStatusCode());
+        return ((Item) resposta.getBody()).getId();
+    }
+}
@@ -0,0 +1,69 @@
+package com.portaria.controle_itens.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitadorTaxaTest {
+
+    private static final long SEGUNDO = 1_000_000_000L;
+
+    @Test
+    void permiteRajadaAteACapacidadeEDepoisRecusa() {
+        AtomicLong relogio = new AtomicLong();
+        LimitadorTaxa limitador = new LimitadorTaxa(3, relogio::get);
+
+        assertTrue(limitador.tentarConsumir());
+        assertTrue(limitador.tentarConsumir());
+        assertTrue(limitador.tentarConsumir());
+        assertFalse(limitador.tentarConsumir());
+    }
+
+    @Test
+    void repoeFichasNaTaxaPorMinuto() {
+        AtomicLong relogio = new AtomicLong();
+        LimitadorTaxa limitador = new LimitadorTaxa(6, relogio::get);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(limitador.tentarConsumir());
+        }
+
+        // 6 por minuto = uma ficha a cada 10 s.
+        relogio.addAndGet(9 * SEGUNDO);
+        assertFalse(limitador.tentarConsumir());
+        relogio.addAndGet(SEGUNDO);
+        assertTrue(limitador.tentarConsumir());
+        assertFalse(limitador.tentarConsumir());
+    }
+
+    @Test
+    void naoAcumulaAlemDaCapacidade() {
+        AtomicLong relogio = new AtomicLong();
+        LimitadorTaxa limitador = new LimitadorTaxa(2, relogio::get);
+
+        relogio.addAndGet(3600 * SEGUNDO);
+        assertTrue(limitador.tentarConsumir());
+        assertTrue(limitador.tentarConsumir());
+        assertFalse(limitador.tentarConsumir());
+    }
+
+    @Test
+    void fichaDevolvidaVoltaSemPassarDaCapacidade() {
+        AtomicLong relogio = new AtomicLong();
+        LimitadorTaxa limitador = new LimitadorTaxa(1, relogio::get);
+
+        assertTrue(limitador.tentarConsumir());
+        limitador.devolver();
+        limitador.devolver();
+        assertTrue(limitador.tentarConsumir());
+        assertFalse(limitador.tentarConsumir());
+    }
+
+    @Test
+    void capacidadeMinimaDeUm() {
+        LimitadorTaxa limitador = new LimitadorTaxa(0, () -> 0L);
+        assertTrue(limitador.tentarConsumir());
+        assertFalse(limitador.tentarConsumir());
+    }
+}
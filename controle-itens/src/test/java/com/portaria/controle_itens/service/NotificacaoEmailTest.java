@@ -0,0 +1,201 @@
+package com.portaria.controle_itens.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.portaria.controle_itens.model.Item;
+import com.portaria.controle_itens.model.Movimentacao;
+import com.portaria.controle_itens.model.NotificacaoOutbox;
+import com.portaria.controle_itens.repository.ItemRepository;
+import com.portaria.controle_itens.repository.MovimentacaoRepository;
+import com.portaria.controle_itens.repository.NotificacaoOutboxRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Envio por e-mail contra um SMTP falso (GreenMail). O limite é de 2 resumos por minuto,
+// e o teste zera os limitadores entre as rodadas em vez de esperar a reposição.
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:notificacao_teste;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.show-sql=false",
+    "app.agendamento.habilitado=false",
+    "app.notificacao.email.habilitado=true",
+    "app.notificacao.webhook.habilitado=false",
+    "app.notificacao.max-por-minuto=2",
+    "spring.mail.host=localhost",
+    "spring.mail.port=3025"
+})
+class NotificacaoEmailTest {
+
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private AlarmeService alarmeService;
+
+    @Autowired
+    private NotificacaoService notificacaoService;
+
+    @Autowired
+    private NotificacaoOutboxRepository outboxRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Test
+    void resumoPorFuncionarioLimiteDeTaxaESemReenvio() throws Exception {
+        criarRetiradaVencida("Ana", "Trena");
+        criarRetiradaVencida("Ana", "Alicate");
+        criarRetiradaVencida("Bruno", "Escada");
+        criarRetiradaVencida("Carla", "Lanterna");
+        alarmeService.verificarAtrasos();
+
+        // Três funcionários, duas fichas: dois resumos saem, o terceiro fica pendente.
+        notificacaoService.despacharPendentes();
+        MimeMessage[] recebidas = smtp.getReceivedMessages();
+        assertEquals(2, recebidas.length);
+        MimeMessage daAna = Arrays.stream(recebidas)
+            .filter(m -> assunto(m).contains("Ana")).findFirst().orElseThrow();
+        String corpo = GreenMailUtil.getBody(daAna);
+        assertTrue(corpo.contains("Trena") && corpo.contains("Alicate"), "Os dois atrasos da Ana vão num único resumo");
+        assertEquals(List.of("Carla"), doStatus(NotificacaoOutbox.PENDENTE));
+
+        // Nova rodada com fichas: só o pendente sai; o que já foi enviado não é reenviado.
+        zerarLimitadores();
+        notificacaoService.despacharPendentes();
+        assertEquals(3, smtp.getReceivedMessages().length);
+        assertTrue(doStatus(NotificacaoOutbox.PENDENTE).isEmpty());
+
+        zerarLimitadores();
+        notificacaoService.despacharPendentes();
+        assertEquals(3, smtp.getReceivedMessages().length);
+    }
+
+    @Test
+    void falhaDeEnvioReagendaERetentativaEnviaUmaVez() throws Exception {
+        criarRetiradaVencida("Davi", "Martelo");
+        alarmeService.verificarAtrasos();
+
+        smtp.stop();
+        zerarLimitadores();
+        notificacaoService.despacharPendentes();
+        NotificacaoOutbox reagendada = doFuncionario("Davi");
+        assertEquals(NotificacaoOutbox.PENDENTE, reagendada.getStatus());
+        assertEquals(1, reagendada.getTentativas());
+        assertTrue(reagendada.getProximaTentativa().isAfter(LocalDateTime.now()));
+
+        // Antecipa a retentativa e volta o servidor.
+        reagendada.setProximaTentativa(LocalDateTime.now().minusSeconds(1));
+        outboxRepository.save(reagendada);
+        smtp.start();
+
+        zerarLimitadores();
+        notificacaoService.despacharPendentes();
+        zerarLimitadores();
+        notificacaoService.despacharPendentes();
+
+        assertEquals(1, smtp.getReceivedMessages().length);
+        assertEquals(NotificacaoOutbox.ENVIADA, doFuncionario("Davi").getStatus());
+    }
+
+    @Test
+    void linhaReservadaPorOutraInstanciaNaoEEnviada() throws Exception {
+        criarRetiradaVencida("Elisa", "Serrote");
+        alarmeService.verificarAtrasos();
+
+        // Simula outra instância no meio do envio deste aviso.
+        NotificacaoOutbox emEnvio = doFuncionario("Elisa");
+        emEnvio.setStatus(NotificacaoOutbox.EM_ENVIO);
+        emEnvio.setDono("outra-instancia");
+        emEnvio.setReservadaAte(LocalDateTime.now().plusMinutes(5));
+        outboxRepository.save(emEnvio);
+
+        // Duas fichas: o grupo da Elisa vem primeiro, mas não é reservado e não gasta ficha.
+        criarRetiradaVencida("Fabio", "Furadeira");
+        criarRetiradaVencida("Gabriel", "Chave");
+        alarmeService.verificarAtrasos();
+
+        zerarLimitadores();
+        notificacaoService.despacharPendentes();
+
+        assertEquals(0, Arrays.stream(smtp.getReceivedMessages()).filter(m -> assunto(m).contains("Elisa")).count());
+        assertEquals("outra-instancia", doFuncionario("Elisa").getDono());
+        assertEquals(NotificacaoOutbox.ENVIADA, doFuncionario("Fabio").getStatus());
+        assertEquals(NotificacaoOutbox.ENVIADA, doFuncionario("Gabriel").getStatus());
+    }
+
+    @Test
+    void atrasoDetectadoSemOCanalLigadoEEnviadoDepois() throws Exception {
+        // Como se a varredura tivesse rodado numa instância sem e-mail ligado: atrasada, sem linha no outbox.
+        Movimentacao mov = criarRetiradaVencida("Helena", "Nivel");
+        mov.setStatusPrazo("ATRASADO");
+        movimentacaoRepository.save(mov);
+
+        zerarLimitadores();
+        notificacaoService.despacharPendentes();
+
+        assertEquals(1, Arrays.stream(smtp.getReceivedMessages()).filter(m -> assunto(m).contains("Helena")).count());
+        assertEquals(NotificacaoOutbox.ENVIADA, doFuncionario("Helena").getStatus());
+
+        // Já preenchida, a linha não é criada de novo.
+        zerarLimitadores();
+        notificacaoService.despacharPendentes();
+        assertEquals(1, outboxRepository.findAll().stream().filter(n -> "Helena".equals(n.getFuncionario())).count());
+    }
+
+    private Movimentacao criarRetiradaVencida(String funcionario, String nomeItem) {
+        Item item = itemRepository.save(new Item(nomeItem, null, null));
+        Movimentacao mov = new Movimentacao();
+        mov.setItem(item);
+        mov.setQuantidade(1);
+        mov.setTipo("RETIRADA");
+        mov.setFuncionarioSolicitante(funcionario);
+        mov.setDataRetirada(LocalDateTime.now().minusDays(5));
+        mov.setDataPrevistaDevolucao(LocalDate.now().minusDays(2));
+        mov.setStatusPrazo("PENDENTE");
+        return movimentacaoRepository.save(mov);
+    }
+
+    private List<String> doStatus(String status) {
+        return outboxRepository.findAll().stream()
+            .filter(n -> status.equals(n.getStatus()))
+            .map(NotificacaoOutbox::getFuncionario)
+            .distinct()
+            .toList();
+    }
+
+    private NotificacaoOutbox doFuncionario(String funcionario) {
+        return outboxRepository.findAll().stream()
+            .filter(n -> funcionario.equals(n.getFuncionario()))
+            .findFirst().orElseThrow();
+    }
+
+    private void zerarLimitadores() {
+        ((Map<?, ?>) ReflectionTestUtils.getField(notificacaoService, "limitadores")).clear();
+    }
+
+    private static String assunto(MimeMessage mensagem) {
+        try {
+            return mensagem.getSubject();
+        } catch (Exception e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.controller.ItemController;
+import com.portaria.controle_itens.model.DivergenciaEstoque;
+import com.portaria.controle_itens.model.Estoque;
+import com.portaria.controle_itens.model.Item;
+import com.portaria.controle_itens.repository.DivergenciaEstoqueRepository;
+import com.portaria.controle_itens.repository.EstoqueRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A reconciliação sobre o H2: a divergência só se confirma vista igual em duas voltas, o reparo é
+// condicionado ao disponível observado, e o medidor sai da tabela.
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:reconciliacao_teste;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.show-sql=false",
+    "app.agendamento.habilitado=false",
+    "app.admissao.habilitado=false"
+})
+class ReconciliacaoServiceTest {
+
+    @Autowired
+    private ReconciliacaoService reconciliacaoService;
+
+    @Autowired
+    private DivergenciaEstoqueRepository divergenciaRepository;
+
+    @Autowired
+    private EstoqueRepository estoqueRepository;
+
+    @Autowired
+    private ItemController itemController;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void limpar() {
+        divergenciaRepository.deleteAll();
+        ReflectionTestUtils.setField(reconciliacaoService, "repararAutomaticamente", false);
+    }
+
+    @Test
+    void divergenciaSoSeConfirmaNaSegundaVoltaIgual() {
+        Estoque particao = criarParticao("Trena", 5);
+        corromper(particao, 3);
+
+        volta();
+        DivergenciaEstoque vista = divergenciaRepository.findById(particao.getId()).orElseThrow();
+        assertEquals(1, vista.getOcorrencias());
+        assertEquals(5, vista.getQuantidadeEsperada());
+        assertTrue(reconciliacaoService.listarDivergencias(true).isEmpty());
+        assertEquals(0, medidor());
+
+        // Diferença diferente na volta seguinte: recomeça a contagem.
+        corromper(particao, 2);
+        volta();
+        assertEquals(1, divergenciaRepository.findById(particao.getId()).orElseThrow().getOcorrencias());
+
+        volta();
+        assertEquals(2, divergenciaRepository.findById(particao.getId()).orElseThrow().getOcorrencias());
+        assertEquals(1, reconciliacaoService.listarDivergencias(true).size());
+        assertEquals(1, medidor());
+
+        // Corrigida por fora, a divergência some na volta seguinte.
+        corromper(particao, 5);
+        volta();
+        assertTrue(divergenciaRepository.findById(particao.getId()).isEmpty());
+        assertEquals(0, medidor());
+    }
+
+    @Test
+    void reparoConfirmadoCorrigeEReparoComDisponivelMudadoNaoGrava() {
+        ReflectionTestUtils.setField(reconciliacaoService, "repararAutomaticamente", true);
+        Estoque particao = criarParticao("Alicate", 4);
+        corromper(particao, 1);
+
+        // Primeira volta só registra; a segunda confirma e repara.
+        volta();
+        assertEquals(1, disponivel(particao));
+        volta();
+        assertEquals(4, disponivel(particao));
+        assertTrue(divergenciaRepository.findById(particao.getId()).isEmpty());
+
+        // Disponível mudou entre a verificação e o reparo: o UPDATE condicionado não acha a linha.
+        corromper(particao, 2);
+        DivergenciaEstoque antiga = new DivergenciaEstoque(particao.getId(), particao.getItem().getId(),
+            particao.getLocal().getId(), 4, 1, 0, 4, ReconciliacaoService.OCORRENCIAS_CONFIRMACAO,
+            LocalDateTime.now(), LocalDateTime.now());
+        assertEquals(Boolean.FALSE, ReflectionTestUtils.invokeMethod(reconciliacaoService, "reparar", antiga));
+        assertEquals(2, disponivel(particao));
+        corromper(particao, 4);
+    }
+
+    @Test
+    void divergenciaDeParticaoRemovidaSai() {
+        Estoque particao = criarParticao("Escada", 3);
+        corromper(particao, 0);
+        volta();
+        volta();
+        assertEquals(1, medidor());
+
+        assertEquals(HttpStatus.NO_CONTENT, itemController.deletarItem(particao.getItem().getId()).getStatusCode());
+        assertTrue(divergenciaRepository.findById(particao.getId()).isEmpty());
+        assertEquals(0, medidor());
+
+        // Linha que sobrou de uma partição apagada por outro caminho sai no fim da volta.
+        divergenciaRepository.save(new DivergenciaEstoque(Long.MAX_VALUE, null, null, 1, 0, 0, 1,
+            ReconciliacaoService.OCORRENCIAS_CONFIRMACAO, LocalDateTime.now(), LocalDateTime.now()));
+        volta();
+        assertTrue(divergenciaRepository.findById(Long.MAX_VALUE).isEmpty());
+    }
+
+    // Uma volta completa: o lote (as partições do teste cabem num só) e a rodada que fecha a volta.
+    private void volta() {
+        reconciliacaoService.verificarProximoLote();
+        reconciliacaoService.verificarProximoLote();
+    }
+
+    private Estoque criarParticao(String nome, int quantidade) {
+        ResponseEntity<?> resposta = itemController.criarItemEmVolume(Map.of("nome", nome, "quantidadeTotal", quantidade));
+        assertEquals(HttpStatus.CREATED, resposta.getStatusCode());
+        return estoqueRepository.findByItem_IdOrderByLocal_IdAsc(((Item) resposta.getBody()).getId()).get(0);
+    }
+
+    private void corromper(Estoque particao, int disponivel) {
+        jdbc.update("UPDATE estoque_local SET quantidade_disponivel = ? WHERE id = ?", disponivel, particao.getId());
+    }
+
+    private int disponivel(Estoque particao) {
+        return jdbc.queryForObject("SELECT quantidade_disponivel FROM estoque_local WHERE id = ?", Integer.class, particao.getId());
+    }
+
+    private double medidor() {
+        return meterRegistry.get("estoque.reconciliacao.divergencias").gauge().value();
+    }
+}
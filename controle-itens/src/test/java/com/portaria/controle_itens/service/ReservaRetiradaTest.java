@@ -0,0 +1,148 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.ControleItensApplication;
+import com.portaria.controle_itens.controller.ItemController;
+import com.portaria.controle_itens.controller.MovimentacaoController;
+import com.portaria.controle_itens.model.Item;
+import com.portaria.controle_itens.model.Reserva;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Retiradas contra reservas em duas instâncias sobre o mesmo H2: a reserva atendida é conferida antes
+// de o estoque sair, e retiradas concorrentes não invadem reservas de nenhuma das instâncias.
+class ReservaRetiradaTest {
+
+    private static ConfigurableApplicationContext noA;
+    private static ConfigurableApplicationContext noB;
+
+    @BeforeAll
+    static void subir() {
+        noA = subir("no-a");
+        noB = subir("no-b");
+    }
+
+    @AfterAll
+    static void derrubar() {
+        if (noB != null) noB.close();
+        if (noA != null) noA.close();
+    }
+
+    private static ConfigurableApplicationContext subir(String id) {
+        return new SpringApplicationBuilder(ControleItensApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:reserva_retirada;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=20000",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.jpa.hibernate.ddl-auto=update",
+            "--spring.jpa.show-sql=false",
+            "--app.instancia.id=" + id,
+            "--app.agendamento.habilitado=false",
+            "--app.admissao.habilitado=false");
+    }
+
+    @Test
+    void retiradaComReservaAtendeAntesEConfereOExcedente() {
+        Long itemId = criarItem("Projetor", 6);
+        LocalDate hoje = LocalDate.now();
+        ReservaService reservas = noA.getBean(ReservaService.class);
+        Reserva reserva = reservas.criarReserva(itemId, 3, hoje, hoje.plusDays(2), "Teste");
+        reservas.criarReserva(itemId, 1, hoje.plusDays(1), hoje.plusDays(3), "Outro");
+        MovimentacaoController retiradasB = noB.getBean(MovimentacaoController.class);
+
+        // Sem reserva, só 2 unidades estão livres até amanhã.
+        assertEquals(HttpStatus.CONFLICT, retirar(retiradasB, itemId, 3, null).getStatusCode());
+        assertEquals(HttpStatus.CREATED, retirar(retiradasB, itemId, 1, null).getStatusCode());
+
+        assertEquals(HttpStatus.NOT_FOUND, retirar(retiradasB, itemId, 1, Long.MAX_VALUE).getStatusCode());
+
+        // Atendida a reserva, ficam 4 livres até amanhã: 5 há no estoque, mas invadiriam a outra reserva,
+        // e nada fica gravado.
+        assertEquals(HttpStatus.CONFLICT, retirar(retiradasB, itemId, 5, reserva.getId()).getStatusCode());
+        assertEquals(Reserva.ATIVA, reservas.buscarReserva(reserva.getId()).orElseThrow().getStatus());
+
+        // A reserva mais uma unidade livre.
+        assertEquals(HttpStatus.CREATED, retirar(retiradasB, itemId, 4, reserva.getId()).getStatusCode());
+        assertEquals(Reserva.ATENDIDA, reservas.buscarReserva(reserva.getId()).orElseThrow().getStatus());
+        assertEquals(HttpStatus.CONFLICT, retirar(retiradasB, itemId, 1, reserva.getId()).getStatusCode());
+
+        JdbcTemplate jdbc = noA.getBean(JdbcTemplate.class);
+        assertEquals(1, jdbc.queryForObject("SELECT reservas_ativas FROM item WHERE id = ?", Integer.class, itemId));
+    }
+
+    @Test
+    void retiradasConcorrentesNaoInvademReserva() throws Exception {
+        int total = 10;
+        int reservadas = 4;
+        Long itemId = criarItem("Notebook", total);
+        LocalDate hoje = LocalDate.now();
+        noB.getBean(ReservaService.class).criarReserva(itemId, reservadas, hoje, hoje.plusDays(5), "Teste");
+
+        int retiradas = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<ResponseEntity<?>>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < retiradas; i++) {
+                MovimentacaoController controller = (i % 2 == 0 ? noA : noB).getBean(MovimentacaoController.class);
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    return retirar(controller, itemId, 1, null);
+                }));
+            }
+            largada.countDown();
+
+            int aceitas = 0;
+            for (Future<ResponseEntity<?>> resultado : resultados) {
+                ResponseEntity<?> resposta = resultado.get(60, TimeUnit.SECONDS);
+                if (HttpStatus.CREATED.equals(resposta.getStatusCode())) {
+                    aceitas++;
+                } else {
+                    assertEquals(HttpStatus.CONFLICT, resposta.getStatusCode());
+                }
+            }
+            assertEquals(total - reservadas, aceitas);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // O índice mantido pelas retiradas bate com o montado do zero.
+        assertEquals(0, noA.getBean(ReservaService.class).consultarDisponivel(itemId, hoje, hoje.plusDays(5)));
+    }
+
+    private static ResponseEntity<?> retirar(MovimentacaoController controller, Long itemId, int quantidade, Long reservaId) {
+        Map<String, Object> requisicao = new HashMap<>(Map.of(
+            "quantidade", quantidade, "tipo", "RETIRADA", "funcionarioSolicitante", "Teste",
+            "dataPrevistaDevolucao", LocalDate.now().plusDays(1).toString()));
+        if (reservaId != null) {
+            requisicao.put("reservaId", reservaId);
+        }
+        return controller.registrarRetirada(itemId, requisicao);
+    }
+
+    private Long criarItem(String nome, int quantidade) {
+        ResponseEntity<?> resposta = noA.getBean(ItemController.class).criarItemEmVolume(Map.of(
+            "nome", nome, "quantidadeTotal", quantidade));
+        assertEquals(HttpStatus.CREATED, resposta.getStatusCode());
+        return ((Item) resposta.getBody()).getId();
+    }
+}
@@ -0,0 +1,116 @@
+package com.portaria.controle_itens.service;
+
+import com.portaria.controle_itens.ControleItensApplication;
+import com.portaria.controle_itens.model.Item;
+import com.portaria.controle_itens.model.Movimentacao;
+import com.portaria.controle_itens.model.TravaExecucao;
+import com.portaria.controle_itens.repository.ItemRepository;
+import com.portaria.controle_itens.repository.MovimentacaoRepository;
+import com.portaria.controle_itens.repository.TravaExecucaoRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Duas instâncias da aplicação no mesmo banco H2, com o agendamento desligado para que
+// cada tarefa rode só quando o teste chama.
+class VariasInstanciasTest {
+
+    private static final long DURACAO_TRAVA_MS = 1000;
+
+    private static ConfigurableApplicationContext noA;
+    private static ConfigurableApplicationContext noB;
+
+    @BeforeAll
+    static void subir() {
+        noA = subir("no-a");
+        noB = subir("no-b");
+    }
+
+    @AfterAll
+    static void derrubar() {
+        if (noB != null) noB.close();
+        if (noA != null) noA.close();
+    }
+
+    private static ConfigurableApplicationContext subir(String id) {
+        return new SpringApplicationBuilder(ControleItensApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:varias_instancias;MODE=MySQL;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.jpa.hibernate.ddl-auto=update",
+            "--spring.jpa.show-sql=false",
+            "--app.instancia.id=" + id,
+            "--app.trava.duracao-segundos=" + (DURACAO_TRAVA_MS / 1000),
+            "--app.agendamento.habilitado=false");
+    }
+
+    @Test
+    void soUmaInstanciaVerificaAtrasosEAOutraAssumeQuandoOLeaseExpira() throws InterruptedException {
+        MovimentacaoRepository movimentacoes = noA.getBean(MovimentacaoRepository.class);
+        TravaExecucaoRepository travas = noA.getBean(TravaExecucaoRepository.class);
+
+        noA.getBean(AlarmeService.class).verificarAtrasos();
+        assertEquals("no-a", travas.findById("verificarAtrasos").map(TravaExecucao::getDono).orElse(null));
+
+        // Com o lease de A válido, B não varre: a retirada vencida continua pendente.
+        Long atrasadaId = criarRetiradaVencida("Furadeira");
+        noB.getBean(AlarmeService.class).verificarAtrasos();
+        assertEquals("PENDENTE", movimentacoes.findById(atrasadaId).orElseThrow().getStatusPrazo());
+        assertEquals("no-a", travas.findById("verificarAtrasos").map(TravaExecucao::getDono).orElse(null));
+
+        // A para de renovar; depois da duração do lease, B assume e faz a varredura.
+        Thread.sleep(DURACAO_TRAVA_MS + 500);
+        noB.getBean(AlarmeService.class).verificarAtrasos();
+        assertEquals("ATRASADO", movimentacoes.findById(atrasadaId).orElseThrow().getStatusPrazo());
+        assertEquals("no-b", travas.findById("verificarAtrasos").map(TravaExecucao::getDono).orElse(null));
+
+        // E A, de volta, não disputa o lease agora renovado por B.
+        assertFalse(noA.getBean(TravaExecucaoService.class).tentarAdquirir("verificarAtrasos"));
+    }
+
+    @Test
+    void eventoGravadoPorUmaInstanciaChegaNaOutra() {
+        List<AlteracaoEvent> recebidosEmB = new CopyOnWriteArrayList<>();
+        noB.addApplicationListener(evento -> {
+            if (evento instanceof PayloadApplicationEvent<?> payload && payload.getPayload() instanceof AlteracaoEvent alteracao) {
+                recebidosEmB.add(alteracao);
+            }
+        });
+
+        EventoAlteracaoService eventosB = noB.getBean(EventoAlteracaoService.class);
+        // A primeira leitura só posiciona o cursor no fim do log.
+        eventosB.consumirEventos();
+
+        noA.getBean(EventoAlteracaoService.class).publicar(EventoAlteracaoService.ITEM, 4242L, "ATUALIZACAO");
+        eventosB.consumirEventos();
+
+        assertTrue(recebidosEmB.stream().anyMatch(e -> EventoAlteracaoService.ITEM.equals(e.entidade())
+                && Long.valueOf(4242L).equals(e.entidadeId())
+                && "no-a".equals(e.origem())));
+    }
+
+    private Long criarRetiradaVencida(String nomeItem) {
+        Item item = noA.getBean(ItemRepository.class).save(new Item(nomeItem, null, null));
+        Movimentacao mov = new Movimentacao();
+        mov.setItem(item);
+        mov.setQuantidade(1);
+        mov.setTipo("RETIRADA");
+        mov.setFuncionarioSolicitante("Teste");
+        mov.setDataRetirada(LocalDateTime.now().minusDays(3));
+        mov.setDataPrevistaDevolucao(LocalDate.now().minusDays(1));
+        mov.setStatusPrazo("PENDENTE");
+        return noA.getBean(MovimentacaoRepository.class).save(mov).getId();
+    }
+}